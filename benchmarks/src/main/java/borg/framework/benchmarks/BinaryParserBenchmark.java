@@ -0,0 +1,260 @@
+package borg.framework.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.auxiliaries.BinaryParser;
+import borg.framework.auxiliaries.FrameDecoder;
+import borg.framework.serializers.GenerateCodec;
+
+/**
+ * writing and reading of integers and objects by {@link BinaryParser}, in both formats: pooled and
+ * new writers, hand-written and generated serialization, and decoding of frames received in
+ * network sized chunks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BinaryParserBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	/** time of the first sample, fixed so the written sizes do not depend on the run time **/
+	private static final long TIME_START = 1_700_000_000_000L;
+
+	/** size of chunk received from network **/
+	private static final int SIZE_CHUNK = 1460;
+
+	/** maximal size of decoded frame **/
+	private static final int MAX_SIZE_FRAME = 1 << 10;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** location sample with hand-written serialization **/
+	public static final class Sample implements BinaryParser.BinarySerializable
+	{
+		final long time;
+
+		final double latitude;
+
+		final double longitude;
+
+		final int accuracy;
+
+		Sample(long time_, double latitude_, double longitude_, int accuracy_)
+		{
+			time = time_;
+			latitude = latitude_;
+			longitude = longitude_;
+			accuracy = accuracy_;
+		}
+
+		public Sample(@NotNull BinaryParser.Reader reader_)
+		{
+			time = BinaryParser.readSignedInteger(reader_, BinaryParser.SIZE_INT64);
+			latitude = BinaryParser.readReal(reader_);
+			longitude = BinaryParser.readReal(reader_);
+			accuracy = (int)BinaryParser.readSignedInteger(reader_, BinaryParser.SIZE_INT32);
+		}
+
+		@Override
+		public int serialize(@NotNull BinaryParser.Writer writer_)
+		{
+			int size = BinaryParser.writeSignedInteger(time, BinaryParser.SIZE_INT64, writer_);
+			size += BinaryParser.writeReal(latitude, writer_);
+			size += BinaryParser.writeReal(longitude, writer_);
+			size += BinaryParser.writeSignedInteger(accuracy, BinaryParser.SIZE_INT32, writer_);
+
+			return size;
+		}
+	}
+
+	/** location sample with generated codec **/
+	@GenerateCodec
+	public record CodecSample(long time, double latitude, double longitude, int accuracy)
+		implements BinaryParser.BinarySerializable
+	{
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Param({"FIXED", "COMPACT"})
+	public BinaryParser.Format format;
+
+	@Param({"16", "1024", "65536"})
+	public int count;
+
+	/** integers to write, mostly small as counters and lengths are **/
+	private long[] mValues;
+
+	/** samples to write **/
+	private List<Sample> mSamples;
+
+	/** samples to write by codec **/
+	private List<CodecSample> mCodecSamples;
+
+	/** written integers **/
+	private byte[] mIntegers;
+
+	/** written samples **/
+	private byte[] mObjects;
+
+	/** written samples, each as frame **/
+	private byte[] mFrames;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		Random random = new Random(SEED);
+		mValues = new long[count];
+		mSamples = new ArrayList<>(count);
+		mCodecSamples = new ArrayList<>(count);
+		long time = TIME_START;
+		for (int i = 0; i < count; ++i)
+		{
+			mValues[i] = random.nextInt(1 << random.nextInt(31));
+
+			time += random.nextInt(1000);
+			double latitude = 32 + random.nextDouble();
+			double longitude = 34 + random.nextDouble();
+			int accuracy = random.nextInt(100);
+			mSamples.add(new Sample(time, latitude, longitude, accuracy));
+			mCodecSamples.add(new CodecSample(time, latitude, longitude, accuracy));
+		}
+
+		mIntegers = writeIntegers();
+		mObjects = writeObjects();
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		for (CodecSample sample : mCodecSamples)
+		{
+			FrameDecoder.writeFrame(sample, writer);
+		}
+		mFrames = writer.extractContent();
+	}
+
+	@Benchmark
+	public byte[] writeIntegers()
+	{
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		for (long value : mValues)
+		{
+			BinaryParser.writeSignedInteger(value, BinaryParser.SIZE_INT64, writer);
+		}
+
+		return writer.extractContent();
+	}
+
+	@Benchmark
+	public int writeIntegersPooled()
+	{
+		BinaryParser.Writer writer = BinaryParser.Writer.obtain(0, format);
+		for (long value : mValues)
+		{
+			BinaryParser.writeSignedInteger(value, BinaryParser.SIZE_INT64, writer);
+		}
+
+		int length = writer.length();
+		writer.recycle();
+
+		return length;
+	}
+
+	@Benchmark
+	public long readIntegers()
+	{
+		BinaryParser.Reader reader = new BinaryParser.Reader(mIntegers);
+		reader.setFormat(format);
+
+		long sum = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			sum += BinaryParser.readSignedInteger(reader, BinaryParser.SIZE_INT64);
+		}
+
+		return sum;
+	}
+
+	@Benchmark
+	public byte[] writeObjects()
+	{
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		BinaryParser.writeObjects(mSamples, writer);
+
+		return writer.extractContent();
+	}
+
+	@Benchmark
+	public byte[] writeCodecObjects()
+	{
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		BinaryParser.writeObjects(mCodecSamples, writer);
+
+		return writer.extractContent();
+	}
+
+	@Benchmark
+	public List<Sample> readObjects()
+	{
+		BinaryParser.Reader reader = new BinaryParser.Reader(mObjects);
+		reader.setFormat(format);
+
+		return BinaryParser.readObjects(reader, Sample.class);
+	}
+
+	@Benchmark
+	public List<CodecSample> readCodecObjects()
+	{
+		// hand-written and generated serialization write the same layout
+		BinaryParser.Reader reader = new BinaryParser.Reader(mObjects);
+		reader.setFormat(format);
+
+		return BinaryParser.readObjects(reader, CodecSample.class);
+	}
+
+	@Benchmark
+	public int decodeFrames() throws Exception
+	{
+		FrameDecoder<CodecSample> decoder =
+			new FrameDecoder<>(CodecSample.class, format, MAX_SIZE_FRAME);
+
+		int decoded = 0;
+		for (int i = 0; i < mFrames.length; i += SIZE_CHUNK)
+		{
+			decoded += decoder.feed(mFrames, i, Math.min(SIZE_CHUNK, mFrames.length - i));
+		}
+
+		return decoded;
+	}
+}
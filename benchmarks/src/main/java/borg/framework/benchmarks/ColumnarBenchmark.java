@@ -0,0 +1,145 @@
+package borg.framework.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.auxiliaries.BinaryParser;
+import borg.framework.auxiliaries.ColumnarParser;
+
+/**
+ * batches of location samples written row by row by {@link BinaryParser#writeObjects} against
+ * column by column by {@link ColumnarParser}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnarBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	/** time of the first sample, fixed so the written sizes do not depend on the run time **/
+	private static final long TIME_START = 1_700_000_000_000L;
+
+	/** number of distinct accuracies, as reported by location providers **/
+	private static final int COUNT_ACCURACIES = 8;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Param({"FIXED", "COMPACT"})
+	public BinaryParser.Format format;
+
+	@Param({"1024", "65536"})
+	public int count;
+
+	/** samples to write **/
+	private List<BinaryParserBenchmark.CodecSample> mSamples;
+
+	/** samples written as rows **/
+	private byte[] mRows;
+
+	/** samples written as columns **/
+	private byte[] mColumns;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		Random random = new Random(SEED);
+		mSamples = new ArrayList<>(count);
+		long time = TIME_START;
+		for (int i = 0; i < count; ++i)
+		{
+			time += 1000 + random.nextInt(10);
+			mSamples.add(new BinaryParserBenchmark.CodecSample(time,
+				32 + random.nextDouble(),
+				34 + random.nextDouble(),
+				10 * random.nextInt(COUNT_ACCURACIES)));
+		}
+
+		mRows = writeRows();
+		mColumns = writeColumns();
+	}
+
+	@Benchmark
+	public byte[] writeRows()
+	{
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		BinaryParser.writeObjects(mSamples, writer);
+
+		return writer.extractContent();
+	}
+
+	@Benchmark
+	public byte[] writeColumns()
+	{
+		BinaryParser.Writer writer = new BinaryParser.Writer(format);
+		ColumnarParser.writeLongs(mSamples,
+			BinaryParserBenchmark.CodecSample::time,
+			ColumnarParser.Encoding.DELTA,
+			writer);
+		ColumnarParser.writeDoubles(mSamples,
+			BinaryParserBenchmark.CodecSample::latitude,
+			ColumnarParser.Encoding.PLAIN,
+			writer);
+		ColumnarParser.writeDoubles(mSamples,
+			BinaryParserBenchmark.CodecSample::longitude,
+			ColumnarParser.Encoding.PLAIN,
+			writer);
+		ColumnarParser.writeLongs(mSamples,
+			BinaryParserBenchmark.CodecSample::accuracy,
+			ColumnarParser.Encoding.DICTIONARY,
+			writer);
+
+		return writer.extractContent();
+	}
+
+	@Benchmark
+	public List<BinaryParserBenchmark.CodecSample> readRows()
+	{
+		BinaryParser.Reader reader = new BinaryParser.Reader(mRows);
+		reader.setFormat(format);
+
+		return BinaryParser.readObjects(reader, BinaryParserBenchmark.CodecSample.class);
+	}
+
+	@Benchmark
+	public void readColumns(Blackhole blackhole_)
+	{
+		BinaryParser.Reader reader = new BinaryParser.Reader(mColumns);
+		reader.setFormat(format);
+
+		blackhole_.consume(ColumnarParser.readLongs(reader));
+		blackhole_.consume(ColumnarParser.readDoubles(reader));
+		blackhole_.consume(ColumnarParser.readDoubles(reader));
+		blackhole_.consume(ColumnarParser.readLongs(reader));
+	}
+}
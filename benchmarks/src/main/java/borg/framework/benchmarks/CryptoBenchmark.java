@@ -0,0 +1,158 @@
+package borg.framework.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.services.ArraysManager;
+
+/**
+ * hashing and encryption by {@link ArraysManager}: CTR encryption with separate SHA-256 against
+ * authenticated GCM encryption, from single thread and from several threads at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CryptoBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	/** number of threads of contended benchmarks **/
+	private static final int COUNT_THREADS = 4;
+
+	/** number of records of batch benchmarks **/
+	private static final int COUNT_RECORDS = 256;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** size of processed data **/
+	@Param({"64", "4096", "65536"})
+	public int size;
+
+	/** data to process **/
+	private byte[] mData;
+
+	/** secret key **/
+	private byte[] mKey;
+
+	/** initial vector of CTR encryption **/
+	private byte[] mIv;
+
+	/** data encrypted by GCM **/
+	private byte[] mAuthenticated;
+
+	/** records of batch benchmarks, each of the processed size **/
+	private byte[][] mRecords;
+
+	/** hashes of batch benchmarks **/
+	private byte[] mHashes;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception
+	{
+		Random random = new Random(SEED);
+		mData = new byte[size];
+		random.nextBytes(mData);
+		mKey = new byte[ArraysManager.LENGTH_AES_BLOCK];
+		random.nextBytes(mKey);
+		mIv = new byte[ArraysManager.LENGTH_AES_BLOCK];
+		random.nextBytes(mIv);
+		mAuthenticated = ArraysManager.encryptAuthenticated(mData, mKey);
+
+		mRecords = new byte[COUNT_RECORDS][];
+		for (int i = 0; i < COUNT_RECORDS; ++i)
+		{
+			mRecords[i] = mData;
+		}
+		mHashes = new byte[COUNT_RECORDS * ArraysManager.LENGTH_SHA256];
+	}
+
+	@Benchmark
+	public byte[] sha256()
+	{
+		return ArraysManager.getArraySha256(mData);
+	}
+
+	@Benchmark
+	@Threads(COUNT_THREADS)
+	public byte[] sha256Contended()
+	{
+		return ArraysManager.getArraySha256(mData);
+	}
+
+	@Benchmark
+	public byte[] sha256Batch()
+	{
+		ArraysManager.getArraysSha256(mRecords, mHashes);
+
+		return mHashes;
+	}
+
+	@Benchmark
+	public byte[] encryptCtr() throws Exception
+	{
+		return ArraysManager.encrypt(mData, mKey, mIv);
+	}
+
+	@Benchmark
+	@Threads(COUNT_THREADS)
+	public byte[] encryptCtrContended() throws Exception
+	{
+		return ArraysManager.encrypt(mData, mKey, mIv);
+	}
+
+	@Benchmark
+	public void encryptCtrAndSha256(Blackhole blackhole_) throws Exception
+	{
+		byte[] encrypted = ArraysManager.encrypt(mData, mKey, mIv);
+		blackhole_.consume(encrypted);
+		blackhole_.consume(ArraysManager.getArraySha256(encrypted));
+	}
+
+	@Benchmark
+	public byte[] encryptGcm() throws Exception
+	{
+		return ArraysManager.encryptAuthenticated(mData, mKey);
+	}
+
+	@Benchmark
+	@Threads(COUNT_THREADS)
+	public byte[] encryptGcmContended() throws Exception
+	{
+		return ArraysManager.encryptAuthenticated(mData, mKey);
+	}
+
+	@Benchmark
+	public byte[] decryptGcm() throws Exception
+	{
+		return ArraysManager.decryptAuthenticated(mAuthenticated, mKey);
+	}
+}
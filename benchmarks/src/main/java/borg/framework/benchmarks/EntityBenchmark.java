@@ -0,0 +1,197 @@
+package borg.framework.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.serializers.EntityParser;
+import borg.framework.serializers.JsonWriter;
+import borg.framework.serializers.REntity;
+
+/**
+ * conversion of {@link REntity} graphs to JSON and back by {@link EntityParser}, and streaming
+ * of entities to JSON by {@link JsonWriter} compared to building maps and JSON objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** entity with nested entities **/
+	public static final class Item extends REntity
+	{
+		@Serial
+		private static final long serialVersionUID = 1;
+
+		private static final String KEY_ID = "id";
+
+		private static final String KEY_NAME = "name";
+
+		private static final String KEY_SCORE = "score";
+
+		private static final String KEY_CHILDREN = "children";
+
+		final long id;
+
+		@Nullable
+		final String name;
+
+		final double score;
+
+		@Nullable
+		final List<Item> children;
+
+		Item(long id_, @NotNull String name_, double score_, @Nullable List<Item> children_)
+		{
+			id = id_;
+			name = name_;
+			score = score_;
+			children = children_;
+		}
+
+		public Item(@Nullable HashMap<String, Object> map_)
+		{
+			super(map_);
+
+			id = readField(map_, KEY_ID, 0L);
+			name = readField(map_, KEY_NAME);
+			score = readField(map_, KEY_SCORE, 0.0);
+			children = readField(map_, KEY_CHILDREN, Item.class, null);
+		}
+
+		@Override
+		protected void buildMap(@NotNull HashMap<String, Object> map_)
+		{
+			super.buildMap(map_);
+
+			map_.put(KEY_ID, id);
+			map_.put(KEY_NAME, name);
+			map_.put(KEY_SCORE, score);
+			map_.put(KEY_CHILDREN, serialize(children));
+		}
+
+		@Override
+		protected void writeFields(@NotNull JsonWriter writer_)
+		{
+			super.writeFields(writer_);
+
+			writer_.field(KEY_ID, id);
+			writer_.field(KEY_NAME, name);
+			writer_.field(KEY_SCORE, score);
+
+			// empty list is not mapped
+			if ((children != null) && (children.isEmpty() == false))
+			{
+				writer_.field(KEY_CHILDREN, children);
+			}
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** number of nested entities **/
+	@Param({"0", "16", "1024"})
+	public int children;
+
+	/** entity to convert **/
+	private Item mItem;
+
+	/** entity as JSON **/
+	private String mJson;
+
+	/** writer reused by all invocations **/
+	private JsonWriter mWriter;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		Random random = new Random(SEED);
+		ArrayList<Item> items = new ArrayList<>(children);
+		for (int i = 0; i < children; ++i)
+		{
+			items.add(new Item(random.nextLong(), "child " + i, random.nextDouble(), null));
+		}
+		mItem = new Item(random.nextLong(), "root", random.nextDouble(), items);
+		mJson = mItem.toString();
+		mWriter = new JsonWriter();
+	}
+
+	@Benchmark
+	public HashMap<String, Object> toMap()
+	{
+		return mItem.toMap();
+	}
+
+	@Benchmark
+	public String toJson()
+	{
+		return mItem.toString();
+	}
+
+	@Benchmark
+	public String toJsonObject()
+	{
+		return EntityParser.buildJson(mItem.toMap()).toString();
+	}
+
+	@Benchmark
+	public int writeJson()
+	{
+		mWriter.clear();
+		mItem.writeJson(mWriter);
+
+		return mWriter.length();
+	}
+
+	@Benchmark
+	public void writeJsonStream() throws Exception
+	{
+		mItem.writeJson(OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public Item fromJson()
+	{
+		return REntity.buildEntity(EntityParser.buildMap(new JSONObject(mJson)), Item.class, null);
+	}
+}
@@ -0,0 +1,101 @@
+package borg.framework.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.services.ArraysManager;
+
+/**
+ * hex encoding and decoding by {@link ArraysManager}, to new strings and arrays and to given
+ * buffers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HexBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** size of encoded array **/
+	@Param({"16", "1024", "65536", "1048576"})
+	public int size;
+
+	/** array to encode **/
+	private byte[] mArray;
+
+	/** encoded array **/
+	private String mHex;
+
+	/** buffer to encode to **/
+	private char[] mChars;
+
+	/** buffer to decode to **/
+	private byte[] mBytes;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		mArray = new byte[size];
+		new Random(SEED).nextBytes(mArray);
+		mHex = ArraysManager.getArrayAsHex(mArray);
+		mChars = new char[size * 2];
+		mBytes = new byte[size];
+	}
+
+	@Benchmark
+	public String toHex()
+	{
+		return ArraysManager.getArrayAsHex(mArray);
+	}
+
+	@Benchmark
+	public char[] toHexBuffer()
+	{
+		ArraysManager.getArrayAsHex(mArray, 0, size, mChars, 0);
+
+		return mChars;
+	}
+
+	@Benchmark
+	public byte[] fromHex()
+	{
+		return ArraysManager.buildArrayFromHex(mHex);
+	}
+
+	@Benchmark
+	public byte[] fromHexBuffer()
+	{
+		ArraysManager.buildArrayFromHex(mHex, 0, mHex.length(), mBytes, 0);
+
+		return mBytes;
+	}
+}
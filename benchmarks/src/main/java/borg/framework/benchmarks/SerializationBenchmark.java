@@ -0,0 +1,135 @@
+package borg.framework.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import borg.framework.serializers.BinarySerialized;
+import borg.framework.serializers.SchemaCodec;
+
+/**
+ * state serialization of {@link borg.framework.serializers.BinarySerialized} objects: java
+ * serialization against {@link SchemaCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** seed of generated data, so all runs measure the same data **/
+	private static final long SEED = 42;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** state of user profile **/
+	public static final class Profile implements Serializable
+	{
+		@Serial
+		private static final long serialVersionUID = 1;
+
+		long id;
+
+		String name;
+
+		double score;
+
+		boolean active;
+
+		int[] counters;
+
+		byte[] avatar;
+
+		public Profile()
+		{
+			// nothing to do here
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** size of binary field of the state **/
+	@Param({"0", "1024", "65536"})
+	public int payload;
+
+	/** state to write **/
+	private Profile mProfile;
+
+	/** state written by java serialization **/
+	private byte[] mJava;
+
+	/** state written by schema codec **/
+	private byte[] mSchema;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception
+	{
+		Random random = new Random(SEED);
+		mProfile = new Profile();
+		mProfile.id = random.nextLong();
+		mProfile.name = "user " + random.nextInt();
+		mProfile.score = random.nextDouble();
+		mProfile.active = true;
+		mProfile.counters = random.ints(16).toArray();
+		mProfile.avatar = new byte[payload];
+		random.nextBytes(mProfile.avatar);
+
+		mJava = javaWrite();
+		mSchema = schemaWrite();
+	}
+
+	@Benchmark
+	public byte[] javaWrite()
+	{
+		return BinarySerialized.write(mProfile);
+	}
+
+	@Benchmark
+	public Profile javaRead()
+	{
+		return BinarySerialized.read(mJava);
+	}
+
+	@Benchmark
+	public byte[] schemaWrite() throws Exception
+	{
+		return SchemaCodec.write(mProfile);
+	}
+
+	@Benchmark
+	public Profile schemaRead() throws Exception
+	{
+		Profile profile = new Profile();
+		SchemaCodec.read(mSchema, profile);
+
+		return profile;
+	}
+}
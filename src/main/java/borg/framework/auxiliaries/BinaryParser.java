@@ -2,16 +2,25 @@ package borg.framework.auxiliaries;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.OutputStream;
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
 
 import borg.framework.collections.ByteArray;
+import borg.framework.collections.PrimitiveArray;
 import borg.framework.serializers.RTyped;
 
 @SuppressWarnings("ExplicitArrayFilling")
@@ -51,10 +60,36 @@ public final class BinaryParser
 	/** max value of byte */
 	public static final int BYTE_MAX_SIZE = 255;
 
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** digits of hex strings **/
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/** maximal number of writers pooled by each thread **/
+	private static final int MAX_POOLED_WRITERS = 4;
+
+	/** maximal capacity of pooled writer, writers with larger arrays are released **/
+	private static final int MAX_SIZE_POOLED_WRITER = 1 << 20;
+
+	/** writers pooled by each thread **/
+	private static final ThreadLocal<ArrayDeque<Writer>> WRITERS =
+		ThreadLocal.withInitial(ArrayDeque::new);
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Definitions
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 
+	public enum Format
+	{
+		/** integers are written in their size, array lengths in 3 bytes **/
+		FIXED,
+
+		/** integers and array lengths are written as varints, signed integers are zigzag coded **/
+		COMPACT
+	}
+
 	public interface BinarySerializable extends Serializable
 	{
 		/**
@@ -70,124 +105,829 @@ public final class BinaryParser
 		}
 	}
 
+	/**
+	 * reads and writes objects of class without reflection. Codecs are generated for classes
+	 * annotated by {@link borg.framework.serializers.GenerateCodec}, and are preferred over
+	 * {@link BinarySerializable#serialize} and reader constructors.
+	 *
+	 * @param <T> class of the objects.
+	 */
+	public interface Codec<T>
+	{
+		/**
+		 * get number of bytes the object is written in, so writer can be sized before writing.
+		 *
+		 * @param object_ object to write.
+		 * @param format_ format to write in.
+		 *
+		 * @return size of written object.
+		 */
+		@Contract(pure = true)
+		int size(@NotNull T object_, @NotNull Format format_);
+
+		/**
+		 * write object.
+		 *
+		 * @param object_ object to write.
+		 * @param writer_ writer to write with.
+		 *
+		 * @return number of written bytes.
+		 */
+		int write(@NotNull T object_, @NotNull Writer writer_);
+
+		/**
+		 * read object.
+		 *
+		 * @param reader_ reader to use.
+		 *
+		 * @return read object.
+		 *
+		 * @throws Exception if the object cannot be created.
+		 */
+		@NotNull
+		T read(@NotNull Reader reader_) throws Exception;
+	}
+
 	public static final class Reader
 	{
-		/** buffer to read from **/
-		private final byte[] mBuffer;
+		/** buffer to read from, in little endian order. Its position is the current index **/
+		private final ByteBuffer mBuffer;
 
-		/** current buffer index **/
-		private int mIndex;
+		/** format of read data **/
+		@NotNull
+		private Format mFormat = Format.FIXED;
 
 		public Reader(byte @NotNull [] buffer_)
 		{
-			mBuffer = buffer_;
+			mBuffer = ByteBuffer.wrap(buffer_).order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * create reader over part of array, without copying it.
+		 *
+		 * @param buffer_ array to read from.
+		 * @param offset_ offset of the part in the array.
+		 * @param length_ length of the part.
+		 */
+		public Reader(byte @NotNull [] buffer_, int offset_, int length_)
+		{
+			this(ByteBuffer.wrap(buffer_, offset_, length_));
+		}
+
+		/**
+		 * create reader over remaining bytes of buffer, without copying them. The buffer may be
+		 * heap, direct or mapped one. Position of the buffer is not changed by the reader.
+		 *
+		 * @param buffer_ buffer to read from.
+		 */
+		public Reader(@NotNull ByteBuffer buffer_)
+		{
+			mBuffer = buffer_.slice().order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * create reader over next bytes, without copying them. The bytes are skipped by this
+		 * reader.
+		 *
+		 * @param length_ number of bytes to read by created reader.
+		 *
+		 * @return created reader.
+		 */
+		@NotNull
+		public Reader slice(int length_)
+		{
+			int index = _reserve(mBuffer, length_);
+			Reader reader = new Reader(mBuffer.slice(index, length_));
+			reader.mFormat = mFormat;
+
+			return reader;
+		}
+
+		/**
+		 * set format of read data. Must be the format the data was written in.
+		 *
+		 * @param format_ format to set.
+		 */
+		public void setFormat(@NotNull Format format_)
+		{
+			mFormat = format_;
+		}
+
+		/**
+		 * @return format of read data.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public Format getFormat()
+		{
+			return mFormat;
+		}
+
+		/**
+		 * skip next bytes.
+		 *
+		 * @param length_ number of bytes to skip.
+		 */
+		public void skip(int length_)
+		{
+			_reserve(mBuffer, length_);
+		}
+
+		/**
+		 * @return number of bytes remaining to read.
+		 */
+		@Contract(pure = true)
+		public int remaining()
+		{
+			return mBuffer.remaining();
+		}
+
+		@Contract(pure = true)
+		byte read()
+		{
+			return mBuffer.get();
+		}
+
+		@Contract(pure = true)
+		byte touch()
+		{
+			return mBuffer.get(mBuffer.position());
+		}
+
+		@Contract(pure = true)
+		public boolean hasNext()
+		{
+			return mBuffer.hasRemaining();
+		}
+	}
+
+	public static class Writer extends ByteArray
+	{
+		/** format of written data **/
+		@NotNull
+		private Format mFormat;
+
+		/** buffer to write to instead of the array, or null if the array is written **/
+		@Nullable
+		@SuppressWarnings("serial") // writer to a buffer is not serialized
+		private final ByteBuffer mTarget;
+
+		/** position of the target buffer where written data starts **/
+		private final int mStart;
+
+		/** whether the array was handed out by {@link Writer#extractContent} **/
+		private boolean mExtracted;
+
+		/** whether the writer is in the pool, so it cannot be recycled again **/
+		private boolean mPooled;
+
+		public Writer()
+		{
+			this(MIN_SIZE_BUFFER, Format.FIXED);
+		}
+
+		/**
+		 * @param format_ format of written data.
+		 */
+		public Writer(@NotNull Format format_)
+		{
+			this(MIN_SIZE_BUFFER, format_);
+		}
+
+		/**
+		 * @param capacity_ estimated size of written data. The array is reallocated if the data
+		 *                  exceeds the estimation.
+		 */
+		public Writer(int capacity_)
+		{
+			this(capacity_, Format.FIXED);
+		}
+
+		/**
+		 * @param capacity_ estimated size of written data. The array is reallocated if the data
+		 *                  exceeds the estimation.
+		 * @param format_   format of written data.
+		 */
+		public Writer(int capacity_, @NotNull Format format_)
+		{
+			super(capacity_);
+			mFormat = format_;
+			mTarget = null;
+			mStart = 0;
+		}
+
+		/**
+		 * @param target_ buffer to write to.
+		 *
+		 * @see Writer#Writer(ByteBuffer, Format)
+		 */
+		public Writer(@NotNull ByteBuffer target_)
+		{
+			this(target_, Format.FIXED);
+		}
+
+		/**
+		 * create writer that writes to remaining bytes of buffer instead of array. The buffer may
+		 * be heap or direct one, and its position is advanced by written data. Writing more than
+		 * the buffer remaining throws {@link java.nio.BufferOverflowException}.
+		 *
+		 * @param target_ buffer to write to.
+		 * @param format_ format of written data.
+		 */
+		public Writer(@NotNull ByteBuffer target_, @NotNull Format format_)
+		{
+			super(0);
+			mFormat = format_;
+			mTarget = target_;
+			mStart = target_.position();
+		}
+
+		/**
+		 * obtain writer from pool of the current thread, or create new one if the pool is empty.
+		 * The writer should be returned with {@link Writer#recycle} once its content is consumed.
+		 *
+		 * @param capacity_ estimated size of written data.
+		 * @param format_   format of written data.
+		 *
+		 * @return empty writer.
+		 */
+		@NotNull
+		public static Writer obtain(int capacity_, @NotNull Format format_)
+		{
+			// if pool is empty
+			Writer writer = WRITERS.get().poll();
+			if (writer == null)
+			{
+				return new Writer(Math.max(capacity_, MIN_SIZE_BUFFER), format_);
+			}
+
+			writer.mPooled = false;
+			writer.mFormat = format_;
+			writer.ensureCapacity(capacity_);
+
+			return writer;
+		}
+
+		/**
+		 * return writer to pool of the current thread. The writer and arrays or buffers returned by
+		 * {@link Writer#getContent} and {@link Writer#asByteBuffer} must not be used after that.
+		 * Writers to buffers, writers whose content was extracted and writers with too large arrays
+		 * are not pooled. Recycling writer that is already pooled does nothing.
+		 */
+		public void recycle()
+		{
+			// if writer cannot be reused, or was recycled already
+			if ((mTarget != null) || (mExtracted == true) || (mPooled == true) ||
+				(capacity() > MAX_SIZE_POOLED_WRITER))
+			{
+				return;
+			}
+
+			ArrayDeque<Writer> pool = WRITERS.get();
+			if (pool.size() < MAX_POOLED_WRITERS)
+			{
+				mIndex = 0;
+				mPooled = true;
+				pool.push(this);
+			}
+		}
+
+		/**
+		 * @return format of written data.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public Format getFormat()
+		{
+			return mFormat;
+		}
+
+		/**
+		 * get written data without copying it. The buffer shares the writer storage, so it is valid
+		 * until the writer is written, cleared or recycled.
+		 *
+		 * @return buffer with written data, from position 0 to its limit, in little endian order.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public ByteBuffer asByteBuffer()
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				return ByteBuffer.wrap(super.getContent(), 0, mIndex).slice()
+					.order(ByteOrder.LITTLE_ENDIAN);
+			}
+
+			return mTarget.duplicate().position(mStart).limit(mStart + mIndex).slice()
+				.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		/**
+		 * write written data to stream, without copying it.
+		 *
+		 * @param stream_ stream to write to.
+		 *
+		 * @throws Exception if the stream failed.
+		 */
+		public void writeTo(@NotNull OutputStream stream_) throws Exception
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				stream_.write(super.getContent(), 0, mIndex);
+				return;
+			}
+
+			ByteBuffer buffer = asByteBuffer();
+			WritableByteChannel channel = Channels.newChannel(stream_);
+			while (buffer.hasRemaining() == true)
+			{
+				channel.write(buffer);
+			}
+		}
+
+		/**
+		 * write written data to buffer, e.g. direct buffer of socket channel.
+		 *
+		 * @param buffer_ buffer to write to. Its position is advanced by the data length.
+		 */
+		public void writeTo(@NotNull ByteBuffer buffer_)
+		{
+			buffer_.put(asByteBuffer());
+		}
+
+		/**
+		 * reallocate the array once, so it holds the given number of bytes without reallocation.
+		 * Writers to buffers ignore the call.
+		 *
+		 * @param capacity_ number of bytes to hold.
+		 */
+		@Override
+		public void ensureCapacity(int capacity_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				super.ensureCapacity(capacity_);
+			}
+		}
+
+		@Override
+		@Contract(pure = true)
+		public byte get(int ix_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				return super.get(ix_);
+			}
+
+			if (ix_ < mIndex)
+			{
+				return mTarget.get(mStart + ix_);
+			}
+
+			throw new ArrayIndexOutOfBoundsException(String.format("index %d of %d", ix_, mIndex));
+		}
+
+		@Override
+		@Contract(pure = true)
+		public byte last()
+		{
+			return get(mIndex - 1);
+		}
+
+		/**
+		 * get storage of written data. Writers to buffers return copy of written data.
+		 *
+		 * @return array that holds written data from its start.
+		 */
+		@Override
+		@Contract(pure = true)
+		public byte @NotNull [] getContent()
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				return super.getContent();
+			}
+
+			return _copyTarget();
+		}
+
+		@Override
+		@Contract(pure = true)
+		public byte @NotNull [] extractContent()
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				mExtracted = true;
+				return super.extractContent();
+			}
+
+			return _copyTarget();
+		}
+
+		@Override
+		public void push(byte b_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				_grow(mIndex + 1);
+				super.push(b_);
+				return;
+			}
+
+			mTarget.put(b_);
+			++mIndex;
+		}
+
+		@Override
+		public void push(byte @NotNull [] bytes_)
+		{
+			push(bytes_, 0, bytes_.length);
+		}
+
+		@Override
+		public void push(byte @NotNull [] bytes_, int offset_, int length_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				_grow(mIndex + length_);
+				super.push(bytes_, offset_, length_);
+				return;
+			}
+
+			mTarget.put(bytes_, offset_, length_);
+			mIndex += length_;
+		}
+
+		@Override
+		@Contract(pure = true)
+		public byte pop()
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				return super.pop();
+			}
+
+			--mIndex;
+			mTarget.position(mStart + mIndex);
+
+			return mTarget.get(mStart + mIndex);
+		}
+
+		@Override
+		@Contract(pure = true)
+		@NotNull
+		@SuppressWarnings("unchecked") // same cast as ByteArray.subArray does
+		public <S extends PrimitiveArray<Byte>> S subArray(int fromIx_, int toIx_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				return super.subArray(fromIx_, toIx_);
+			}
+
+			byte[] content = new byte[toIx_ - fromIx_];
+			mTarget.get(mStart + fromIx_, content);
+
+			return (S)new ByteArray(content);
+		}
+
+		@Override
+		public void removeRange(int from_, int to_)
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				super.removeRange(from_, to_);
+				return;
+			}
+
+			ByteBuffer tail = mTarget.duplicate().position(mStart + to_).limit(mStart + mIndex);
+			mTarget.duplicate().position(mStart + from_).put(tail);
+			mIndex -= to_ - from_;
+			mTarget.position(mStart + mIndex);
+		}
+
+		@Override
+		public void clear()
+		{
+			// if array is written
+			if (mTarget == null)
+			{
+				super.clear();
+				return;
+			}
+
 			mIndex = 0;
+			mTarget.position(mStart);
+		}
+
+		@Override
+		@NotNull
+		protected Byte getObj(int ix_)
+		{
+			return get(ix_);
+		}
+
+		private void _grow(int minSize_)
+		{
+			// grow geometrically, so large data is reallocated few times
+			int capacity = capacity();
+			if (capacity < minSize_)
+			{
+				long size = Math.max(capacity * 2L, minSize_);
+				ensureCapacity((int)Math.min(size, Integer.MAX_VALUE - 8));
+			}
 		}
 
-		@Contract(pure = true)
-		byte read()
+		@Contract(pure = true)
+		private byte @NotNull [] _copyTarget()
+		{
+			byte[] content = new byte[mIndex];
+			//noinspection ConstantConditions
+			mTarget.get(mStart, content);
+
+			return content;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * get crc32 of array. Safe to call concurrently.
+	 *
+	 * @param data_ data to calculate crc32 of.
+	 *
+	 * @return crc32 value.
+	 */
+	@Contract(pure = true)
+	public static long crcValue(byte @NotNull [] data_)
+	{
+		return crcValue(data_, 0, data_.length);
+	}
+
+	/**
+	 * get crc32 of part of array. Safe to call concurrently.
+	 *
+	 * @param data_   data to calculate crc32 of.
+	 * @param offset_ offset of the part in the array.
+	 * @param length_ length of the part.
+	 *
+	 * @return crc32 value.
+	 */
+	@Contract(pure = true)
+	public static long crcValue(byte @NotNull [] data_, int offset_, int length_)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data_, offset_, length_);
+
+		return crc.getValue();
+	}
+
+	/**
+	 * get crc32 of remaining bytes of buffer. Safe to call concurrently.
+	 *
+	 * @param data_ data to calculate crc32 of. Position of the buffer is not changed.
+	 *
+	 * @return crc32 value.
+	 */
+	@Contract(pure = true)
+	public static long crcValue(@NotNull ByteBuffer data_)
+	{
+		return checksum(new CRC32(), data_);
+	}
+
+	/**
+	 * get crc32c of array. Unlike {@link BinaryParser#crcValue}, which is kept for data already
+	 * stored, crc32c is computed by hardware instructions where available. Safe to call
+	 * concurrently.
+	 *
+	 * @param data_ data to calculate crc32c of.
+	 *
+	 * @return crc32c value.
+	 */
+	@Contract(pure = true)
+	public static long crc32cValue(byte @NotNull [] data_)
+	{
+		return crc32cValue(data_, 0, data_.length);
+	}
+
+	/**
+	 * get crc32c of part of array. Safe to call concurrently.
+	 *
+	 * @param data_   data to calculate crc32c of.
+	 * @param offset_ offset of the part in the array.
+	 * @param length_ length of the part.
+	 *
+	 * @return crc32c value.
+	 */
+	@Contract(pure = true)
+	public static long crc32cValue(byte @NotNull [] data_, int offset_, int length_)
+	{
+		CRC32C crc = new CRC32C();
+		crc.update(data_, offset_, length_);
+
+		return crc.getValue();
+	}
+
+	/**
+	 * get crc32c of remaining bytes of buffer. Safe to call concurrently.
+	 *
+	 * @param data_ data to calculate crc32c of. Position of the buffer is not changed.
+	 *
+	 * @return crc32c value.
+	 */
+	@Contract(pure = true)
+	public static long crc32cValue(@NotNull ByteBuffer data_)
+	{
+		return checksum(new CRC32C(), data_);
+	}
+
+	/**
+	 * update checksum by remaining bytes of buffer, so checksum of data received in several buffers
+	 * is computed incrementally. The checksum should be confined to the calling thread.
+	 *
+	 * @param checksum_ checksum to update, e.g. {@link CRC32} or {@link CRC32C}.
+	 * @param data_     data to update the checksum by. Position of the buffer is not changed.
+	 *
+	 * @return checksum value after the update.
+	 */
+	public static long checksum(@NotNull Checksum checksum_, @NotNull ByteBuffer data_)
+	{
+		checksum_.update(data_.duplicate());
+
+		return checksum_.getValue();
+	}
+
+	/**
+	 * get integer as hex string in little endian representation. Safe to call concurrently.
+	 *
+	 * @param integer_ integer to convert.
+	 * @param size_    size of integer in bytes.
+	 *
+	 * @return hex string represent the integer.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static String integerToHex(long integer_, int size_)
+	{
+		char[] chars = new char[Math.max(size_, 0) * 2];
+
+		// convert to string
+		for (int i = 0; i < chars.length; i += 2)
+		{
+			int b = (int)(integer_ & 0xff);
+			integer_ >>= 8;
+
+			chars[i] = HEX_DIGITS[b >>> 4];
+			chars[i + 1] = HEX_DIGITS[b & 0xf];
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * read integer value from byte array stored in little endian representation.
+	 *
+	 * @param reader_ reader to use.
+	 * @param size_   - value size in bytes.
+	 *
+	 * @return read value.
+	 */
+	@Contract(pure = true)
+	public static long readInteger(@NotNull Reader reader_, int size_)
+	{
+		ByteBuffer buffer = reader_.mBuffer;
+
+		// if integers are written as varints
+		if (reader_.mFormat == Format.COMPACT)
 		{
-			return mBuffer[mIndex++];
+			return _readVarint(buffer);
 		}
 
-		@Contract(pure = true)
-		byte touch()
+		// read value of native size at once
+		switch (size_)
 		{
-			return mBuffer[mIndex];
-		}
+			case SIZE_INT8:
+				return buffer.get() & 0xffL;
 
-		@Contract(pure = true)
-		public boolean hasNext()
-		{
-			return mIndex < mBuffer.length;
-		}
-	}
+			case SIZE_INT16:
+				return buffer.getShort() & 0xffffL;
 
-	public static class Writer extends ByteArray
-	{
-	}
+			case SIZE_INT32:
+				return buffer.getInt() & 0xffffffffL;
 
-	//////////////////////////////////////////////////////////////////////////////////////////////////
-	// Fields
-	//////////////////////////////////////////////////////////////////////////////////////////////////
+			case SIZE_INT64:
+				return buffer.getLong();
 
-	//////////////////////////////////////////////////////////////////////////////////////////////////
-	// Methods
-	//////////////////////////////////////////////////////////////////////////////////////////////////
+			default:
+				break;
+		}
 
-	private static final StringBuilder builder = new StringBuilder();
+		long value = 0;
+		for (int i = 0; i < size_; ++i)
+		{
+			value += (buffer.get() & 0xffL) << (8 * i);
+		}
 
-	private static final CRC32 crc32 = new CRC32();
+		return value;
+	}
 
 	/**
-	 * get array of byte data and returns crc32
+	 * read signed integer value written by {@link BinaryParser#writeSignedInteger}.
 	 *
-	 * @param data_ data to calculate crc32
+	 * @param reader_ reader to use.
+	 * @param size_   value size in bytes.
 	 *
-	 * @return crc32 value.
+	 * @return read value.
 	 */
 	@Contract(pure = true)
-	public static long crcValue(byte @NotNull [] data_)
+	public static long readSignedInteger(@NotNull Reader reader_, int size_)
 	{
-		// reset last value
-		crc32.reset();
-
-		// update value
-		crc32.update(data_);
+		// if integers are written as varints
+		if (reader_.mFormat == Format.COMPACT)
+		{
+			long value = _readVarint(reader_.mBuffer);
+			return (value >>> 1) ^ -(value & 1);
+		}
 
-		return crc32.getValue();
+		// extend sign of the value
+		int shift = 64 - 8 * size_;
+		return (readInteger(reader_, size_) << shift) >> shift;
 	}
 
 	/**
-	 * get integer as hex string in little endian representation.
+	 * read array length.
 	 *
-	 * @param integer_ integer to convert.
-	 * @param size_    size of integer in bytes.
+	 * @param reader_ reader to use.
 	 *
-	 * @return hex string represent the integer.
+	 * @return read length.
 	 */
-	@NotNull
 	@Contract(pure = true)
-	public static String integerToHex(long integer_, int size_)
+	public static int readLength(@NotNull Reader reader_)
 	{
-		builder.setLength(0);
-
-		// convert to string
-		for (; size_ > 0; --size_)
+		// if lengths are written as varints
+		if (reader_.mFormat == Format.COMPACT)
 		{
-			int i = (int)(integer_ & 0xff);
-			integer_ >>= 8;
-
-			// if 4 MSBs is 0
-			if (i < 0x10)
-			{
-				builder.append('0');
-			}
-
-			builder.append(Integer.toHexString(i));
+			return (int)_readVarint(reader_.mBuffer);
 		}
 
-		return builder.toString();
+		return (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
 	}
 
 	/**
-	 * read integer value from byte array stored in little endian representation.
+	 * read varint written by {@link BinaryParser#writeVarint}.
 	 *
 	 * @param reader_ reader to use.
-	 * @param size_   - value size in bytes.
 	 *
 	 * @return read value.
 	 */
 	@Contract(pure = true)
-	public static long readInteger(@NotNull Reader reader_, int size_)
+	public static long readVarint(@NotNull Reader reader_)
 	{
-		long value = 0;
-		for (int i = 0; i < size_; ++i)
+		return _readVarint(reader_.mBuffer);
+	}
+
+	/**
+	 * read string written by {@link BinaryParser#writeString}.
+	 *
+	 * @param reader_ reader to use.
+	 *
+	 * @return read string.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static String readString(@NotNull Reader reader_)
+	{
+		int length = readLength(reader_);
+		ByteBuffer buffer = reader_.mBuffer;
+		int index = _reserve(buffer, length);
+
+		// if buffer is backed by array
+		if (buffer.hasArray() == true)
 		{
-			value += (reader_.read() & 0xffL) << (8 * i);
+			return new String(buffer.array(), buffer.arrayOffset() + index, length,
+				StandardCharsets.UTF_8);
 		}
 
-		return value;
+		byte[] bytes = new byte[length];
+		buffer.get(index, bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
 	}
 
 	/**
@@ -204,25 +944,9 @@ public final class BinaryParser
 		@NotNull Class<T> entityTypesEnum_)
 	{
 
-		long value = 0;
-		for (int i = 0; i < SIZE_INT8; ++i)
-		{
-			value += reader_.read() & 0xffL;
-		}
-
-		// get entity class
-		try
-		{
-			Method method = entityTypesEnum_.getMethod("values");
-			@SuppressWarnings("unchecked")
-			T[] values = (T[])method.invoke(null);
+		long value = readInteger(reader_, SIZE_INT8);
 
-			return values[(int)value];
-		}
-		catch (Exception e)
-		{
-			throw new Error(e);
-		}
+		return ClassCache.getEnumValues(entityTypesEnum_)[(int)value];
 	}
 
 	/**
@@ -258,10 +982,34 @@ public final class BinaryParser
 	public static long @NotNull [] readIntegers(@NotNull Reader reader_, int size_)
 	{
 		// read array size
-		int size = (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
+		int size = readLength(reader_);
 
 		// create array
 		long[] numbers = new long[size];
+		ByteBuffer buffer = reader_.mBuffer;
+
+		// if elements are 64 bit integers of fixed size
+		if ((size_ == SIZE_INT64) && (reader_.mFormat == Format.FIXED))
+		{
+			// read all elements at once
+			buffer.asLongBuffer().get(numbers);
+			buffer.position(buffer.position() + size * SIZE_INT64);
+
+			return numbers;
+		}
+
+		// if elements are 32 bit integers of fixed size
+		if ((size_ == SIZE_INT32) && (reader_.mFormat == Format.FIXED))
+		{
+			// check bounds once for all elements
+			int index = _reserve(buffer, size * SIZE_INT32);
+			for (int i = 0; i < size; ++i, index += SIZE_INT32)
+			{
+				numbers[i] = buffer.getInt(index) & 0xffffffffL;
+			}
+
+			return numbers;
+		}
 
 		// read elements
 		for (int i = 0; i < size; ++i)
@@ -283,14 +1031,9 @@ public final class BinaryParser
 	@Contract(pure = true)
 	public static byte @NotNull [] readBytes(@NotNull Reader reader_, int length_)
 	{
-		// create array
-		byte[] bytes = new byte[length_];
-
 		// read elements
-		for (int i = 0; i < length_; ++i)
-		{
-			bytes[i] = (byte)readInteger(reader_, SIZE_INT8);
-		}
+		byte[] bytes = new byte[length_];
+		reader_.mBuffer.get(bytes);
 
 		return bytes;
 	}
@@ -306,18 +1049,9 @@ public final class BinaryParser
 	public static byte @NotNull [] readBytes(@NotNull Reader reader_)
 	{
 		// read array size
-		int size = (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
-
-		// create array
-		byte[] bytes = new byte[size];
+		int size = readLength(reader_);
 
-		// read elements
-		for (int i = 0; i < size; ++i)
-		{
-			bytes[i] = (byte)readInteger(reader_, SIZE_INT8);
-		}
-
-		return bytes;
+		return readBytes(reader_, size);
 	}
 
 	/**
@@ -331,16 +1065,13 @@ public final class BinaryParser
 	public static double @NotNull [] readReals(@NotNull Reader reader_)
 	{
 		// read array size
-		int size = (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
+		int size = readLength(reader_);
 
-		// create array
+		// read all elements at once
 		double[] reals = new double[size];
-
-		// read elements
-		for (int i = 0; i < size; ++i)
-		{
-			reals[i] = readReal(reader_);
-		}
+		ByteBuffer buffer = reader_.mBuffer;
+		buffer.asDoubleBuffer().get(reals);
+		buffer.position(buffer.position() + size * SIZE_DOUBLE);
 
 		return reals;
 	}
@@ -363,16 +1094,11 @@ public final class BinaryParser
 		try
 		{
 			// get entity class
-			Method method = types_.getMethod("values");
-			RTyped<T>[] values = (RTyped<T>[])method.invoke(null);
-			assert values != null;
+			E[] values = ClassCache.getEnumValues(types_);
 			byte type = reader_.touch();
 			Class<T> entityClass = (Class<T>)values[((Number)type).intValue()].entityClass();
 
-			// get entity constructor
-			Constructor<T> constructor = entityClass.getConstructor(Reader.class);
-			constructor.setAccessible(true);
-			return constructor.newInstance(reader_);
+			return ClassCache.getFactory(entityClass, Reader.class).create(reader_);
 		}
 		catch (Exception e)
 		{
@@ -394,7 +1120,7 @@ public final class BinaryParser
 		@NotNull Class<T> class_)
 	{
 		// read array size
-		int size = (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
+		int size = readLength(reader_);
 
 		// create array
 		ArrayList<T> list = new ArrayList<>(size);
@@ -402,12 +1128,24 @@ public final class BinaryParser
 		// read elements
 		try
 		{
-			Constructor<T> constructor = class_.getDeclaredConstructor(Reader.class);
-			constructor.setAccessible(true);
+			// if codec was generated for the class
+			Codec<T> codec = ClassCache.getCodec(class_);
+			if (codec != null)
+			{
+				for (int i = 0; i < size; ++i)
+				{
+					list.add(codec.read(reader_));
+				}
+
+				return list;
+			}
+
+			ClassCache.Factory<Reader, T> factory = ClassCache.getDeclaredFactory(class_,
+				Reader.class);
 			for (int i = 0; i < size; ++i)
 			{
 				// create object
-				T object = constructor.newInstance(reader_);
+				T object = factory.create(reader_);
 				list.add(object);
 			}
 
@@ -434,7 +1172,7 @@ public final class BinaryParser
 		@NotNull Class<E> types_)
 	{
 		// read array size
-		int size = (int)readInteger(reader_, SIZE_ARRAY_LENGTH);
+		int size = readLength(reader_);
 
 		// read elements
 		ArrayList<T> list = new ArrayList<>(size);
@@ -457,15 +1195,189 @@ public final class BinaryParser
 	 */
 	public static int writeInteger(long value_, int size_, @NotNull Writer writer_)
 	{
-		for (int i = 0; i < size_; ++i)
+		// if integers are written as varints
+		if (writer_.mFormat == Format.COMPACT)
 		{
-			writer_.push((byte)(value_));
-			value_ >>= 8;
+			return _writeVarint((size_ < SIZE_INT64) ? value_ & ((1L << (8 * size_)) - 1) : value_,
+				writer_);
+		}
+
+		return _writeFixed(value_, size_, writer_);
+	}
+
+	/**
+	 * write signed integer value. In compact format the value is zigzag encoded, so small negative
+	 * values are written in few bytes.
+	 *
+	 * @param value_  value to write.
+	 * @param size_   value size.
+	 * @param writer_ writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeSignedInteger(long value_, int size_, @NotNull Writer writer_)
+	{
+		// if integers are written as varints
+		if (writer_.mFormat == Format.COMPACT)
+		{
+			return _writeVarint((value_ << 1) ^ (value_ >> 63), writer_);
+		}
+
+		return writeInteger(value_, size_, writer_);
+	}
+
+	/**
+	 * write array length. In fixed format the length is limited to
+	 * {@link BinaryParser#SIZE_ARRAY_LENGTH} bytes.
+	 *
+	 * @param length_ length to write.
+	 * @param writer_ writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeLength(int length_, @NotNull Writer writer_)
+	{
+		// if lengths are written as varints
+		if (writer_.mFormat == Format.COMPACT)
+		{
+			return _writeVarint(length_, writer_);
+		}
+
+		return writeInteger(length_, SIZE_ARRAY_LENGTH, writer_);
+	}
+
+	/**
+	 * write value as varint in any format: 7 bits per byte, from LSBs, so small values are written
+	 * in few bytes.
+	 *
+	 * @param value_  value to write.
+	 * @param writer_ writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeVarint(long value_, @NotNull Writer writer_)
+	{
+		return _writeVarint(value_, writer_);
+	}
+
+	/**
+	 * write string in UTF-8, prefixed by its length.
+	 *
+	 * @param string_ string to write.
+	 * @param writer_ writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeString(@NotNull String string_, @NotNull Writer writer_)
+	{
+		return writeIntegers(string_.getBytes(StandardCharsets.UTF_8), writer_);
+	}
+
+	/**
+	 * get number of bytes integer is written in by {@link BinaryParser#writeInteger}.
+	 *
+	 * @param value_  value to write.
+	 * @param size_   value size.
+	 * @param format_ format to write in.
+	 *
+	 * @return size of written value.
+	 */
+	@Contract(pure = true)
+	public static int sizeOfInteger(long value_, int size_, @NotNull Format format_)
+	{
+		// if integers are written as varints
+		if (format_ == Format.COMPACT)
+		{
+			long value = (size_ < SIZE_INT64) ? value_ & ((1L << (8 * size_)) - 1) : value_;
+			return _sizeOfVarint(value);
+		}
+
+		return size_;
+	}
+
+	/**
+	 * get number of bytes signed integer is written in by {@link BinaryParser#writeSignedInteger}.
+	 *
+	 * @param value_  value to write.
+	 * @param size_   value size.
+	 * @param format_ format to write in.
+	 *
+	 * @return size of written value.
+	 */
+	@Contract(pure = true)
+	public static int sizeOfSignedInteger(long value_, int size_, @NotNull Format format_)
+	{
+		// if integers are written as varints
+		if (format_ == Format.COMPACT)
+		{
+			return _sizeOfVarint((value_ << 1) ^ (value_ >> 63));
 		}
 
 		return size_;
 	}
 
+	/**
+	 * get number of bytes array length is written in by {@link BinaryParser#writeLength}.
+	 *
+	 * @param length_ length to write.
+	 * @param format_ format to write in.
+	 *
+	 * @return size of written length.
+	 */
+	@Contract(pure = true)
+	public static int sizeOfLength(int length_, @NotNull Format format_)
+	{
+		// if lengths are written as varints
+		if (format_ == Format.COMPACT)
+		{
+			return _sizeOfVarint(length_);
+		}
+
+		return SIZE_ARRAY_LENGTH;
+	}
+
+	/**
+	 * get number of bytes string is written in by {@link BinaryParser#writeString}, without
+	 * encoding it.
+	 *
+	 * @param string_ string to write.
+	 * @param format_ format to write in.
+	 *
+	 * @return size of written string.
+	 */
+	@Contract(pure = true)
+	public static int sizeOfString(@NotNull String string_, @NotNull Format format_)
+	{
+		// count UTF-8 bytes of each char
+		int length = string_.length();
+		int size = length;
+		for (int i = 0; i < length; ++i)
+		{
+			char c = string_.charAt(i);
+			if (c >= 0x80)
+			{
+				// if surrogate pair, its 4 bytes are counted on the high surrogate
+				if (Character.isSurrogate(c) == true)
+				{
+					if ((Character.isHighSurrogate(c) == true) && (i + 1 < length) &&
+						(Character.isLowSurrogate(string_.charAt(i + 1)) == true))
+					{
+						size += 2;
+						++i;
+					}
+
+					// unpaired surrogate is encoded as single '?'
+				}
+				else
+				{
+					size += (c < 0x800) ? 1 : 2;
+				}
+			}
+		}
+
+		return sizeOfLength(size, format_) + size;
+	}
+
 	/**
 	 * write enumerator value to byte array in little endian representation.
 	 *
@@ -515,12 +1427,23 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(collection_.size(), SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(collection_.size(), writer_);
 
 		// write array
 		for (T element : collection_)
 		{
-			size += element.serialize(writer_);
+			// if codec was generated for the element class
+			@SuppressWarnings("unchecked")
+			Codec<T> codec = (Codec<T>)ClassCache.getCodec(element.getClass());
+			if (codec != null)
+			{
+				writer_._grow(writer_.length() + codec.size(element, writer_.mFormat));
+				size += codec.write(element, writer_);
+			}
+			else
+			{
+				size += element.serialize(writer_);
+			}
 		}
 
 		return size;
@@ -539,7 +1462,7 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(array_.length, SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(array_.length, writer_);
 
 		// write array
 		for (int element : array_)
@@ -563,15 +1486,12 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(array_.length, SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(array_.length, writer_);
 
 		// write array
-		for (byte element : array_)
-		{
-			size += writeInteger(element, SIZE_INT8, writer_);
-		}
+		writer_.push(array_);
 
-		return size;
+		return size + array_.length;
 	}
 
 	/**
@@ -589,7 +1509,7 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(collection_.size(), SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(collection_.size(), writer_);
 
 		// write array
 		for (T d : collection_)
@@ -614,7 +1534,7 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(array_.length, SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(array_.length, writer_);
 
 		// write array
 		for (double d : array_)
@@ -640,7 +1560,7 @@ public final class BinaryParser
 		int size = 0;
 
 		// write size
-		size += writeInteger(collection_.size(), SIZE_ARRAY_LENGTH, writer_);
+		size += writeLength(collection_.size(), writer_);
 
 		// write array
 		for (T element : collection_)
@@ -661,7 +1581,7 @@ public final class BinaryParser
 	 */
 	public static int writeReal(double value_, @NotNull Writer writer_)
 	{
-		return writeInteger(Double.doubleToRawLongBits(value_), SIZE_DOUBLE, writer_);
+		return _writeFixed(Double.doubleToRawLongBits(value_), SIZE_DOUBLE, writer_);
 	}
 
 	/**
@@ -674,7 +1594,7 @@ public final class BinaryParser
 	@Contract(pure = true)
 	public static double readReal(@NotNull Reader reader_)
 	{
-		return Double.longBitsToDouble(readInteger(reader_, SIZE_DOUBLE));
+		return reader_.mBuffer.getDouble();
 	}
 
 	/**
@@ -687,7 +1607,7 @@ public final class BinaryParser
 	 */
 	public static int writeFloat(float value_, @NotNull Writer writer_)
 	{
-		return writeInteger(Float.floatToRawIntBits(value_), SIZE_FLOAT, writer_);
+		return _writeFixed(Float.floatToRawIntBits(value_), SIZE_FLOAT, writer_);
 	}
 
 	/**
@@ -700,6 +1620,69 @@ public final class BinaryParser
 	@Contract(pure = true)
 	public static double readFloat(@NotNull Reader reader_)
 	{
-		return Float.intBitsToFloat((int)readInteger(reader_, SIZE_FLOAT));
+		return reader_.mBuffer.getFloat();
+	}
+
+	private static int _writeFixed(long value_, int size_, @NotNull Writer writer_)
+	{
+		for (int i = 0; i < size_; ++i)
+		{
+			writer_.push((byte)(value_));
+			value_ >>= 8;
+		}
+
+		return size_;
+	}
+
+	private static int _writeVarint(long value_, @NotNull Writer writer_)
+	{
+		// write 7 bits per byte, from LSBs, while more bits remain
+		int size = 1;
+		for (; (value_ & ~0x7fL) != 0; value_ >>>= 7, ++size)
+		{
+			writer_.push((byte)((value_ & 0x7f) | 0x80));
+		}
+		writer_.push((byte)value_);
+
+		return size;
+	}
+
+	@Contract(pure = true)
+	private static int _sizeOfVarint(long value_)
+	{
+		// 7 bits per byte, at least one byte
+		return (Long.SIZE - Long.numberOfLeadingZeros(value_ | 1) + 6) / 7;
+	}
+
+	private static long _readVarint(@NotNull ByteBuffer buffer_)
+	{
+		long value = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7)
+		{
+			// if last byte of the value
+			byte b = buffer_.get();
+			value |= (long)(b & 0x7f) << shift;
+			if (b >= 0)
+			{
+				return value;
+			}
+		}
+
+		throw new IllegalStateException("malformed varint at " + buffer_.position());
+	}
+
+	private static int _reserve(@NotNull ByteBuffer buffer_, int length_)
+	{
+		// if buffer has not enough bytes
+		int index = buffer_.position();
+		if (buffer_.remaining() < length_)
+		{
+			throw new IndexOutOfBoundsException(
+				String.format("%d bytes at %d of %d", length_, index, buffer_.limit()));
+		}
+
+		buffer_.position(index + length_);
+
+		return index;
 	}
 }
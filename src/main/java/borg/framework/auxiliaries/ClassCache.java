@@ -0,0 +1,295 @@
+package borg.framework.auxiliaries;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ClassCache
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** name of factory method **/
+	private static final String NAME_CREATE = "create";
+
+	/** suffix of generated codec class name **/
+	private static final String SUFFIX_CODEC = "Codec";
+
+	/** name of generated codec instance field **/
+	private static final String NAME_INSTANCE = "INSTANCE";
+
+	/** constants of enum classes **/
+	private static final ClassValue<Object[]> ENUM_VALUES = new ClassValue<>()
+	{
+		@Override
+		@NotNull
+		protected Object[] computeValue(@NotNull Class<?> type_)
+		{
+			Object[] values = type_.getEnumConstants();
+			if (values == null)
+			{
+				throw new IllegalArgumentException("not an enum: " + type_.getName());
+			}
+
+			return values;
+		}
+	};
+
+	/** factories of classes by public constructors, mapped by constructor argument class **/
+	private static final ClassValue<Map<Class<?>, Factory<?, ?>>> FACTORIES = new ClassValue<>()
+	{
+		@Override
+		@NotNull
+		protected Map<Class<?>, Factory<?, ?>> computeValue(@NotNull Class<?> type_)
+		{
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/** factories of classes by constructors of any access, mapped by constructor argument class **/
+	private static final ClassValue<Map<Class<?>, Factory<?, ?>>> DECLARED_FACTORIES =
+		new ClassValue<>()
+		{
+			@Override
+			@NotNull
+			protected Map<Class<?>, Factory<?, ?>> computeValue(@NotNull Class<?> type_)
+			{
+				return new ConcurrentHashMap<>();
+			}
+		};
+
+	/** codecs generated for classes, or null for classes without codec **/
+	private static final ClassValue<BinaryParser.Codec<?>> CODECS = new ClassValue<>()
+	{
+		@Override
+		@Nullable
+		protected BinaryParser.Codec<?> computeValue(@NotNull Class<?> type_)
+		{
+			return _loadCodec(type_);
+		}
+	};
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@FunctionalInterface
+	public interface Factory<A, T>
+	{
+		/**
+		 * create instance.
+		 *
+		 * @param argument_ argument of the constructor.
+		 *
+		 * @return created instance.
+		 *
+		 * @throws Exception if the constructor failed.
+		 */
+		@NotNull
+		T create(A argument_) throws Exception;
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Contract(pure = true)
+	private ClassCache()
+	{
+		// private constructor to prevent instantiation
+	}
+
+	/**
+	 * get constants of enum. The constants are retrieved once per enum.
+	 *
+	 * @param enum_ enum class.
+	 *
+	 * @return constants of the enum, in ordinal order. The array is shared and must not be modified.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	@SuppressWarnings("unchecked") // the array is created by the enum class
+	public static <T extends Enum<T>> T @NotNull [] getEnumValues(@NotNull Class<T> enum_)
+	{
+		return (T[])ENUM_VALUES.get(enum_);
+	}
+
+	/**
+	 * get factory that creates instances of class by its public constructor with one argument. The
+	 * factory is built once per class and argument class, and calls the constructor without
+	 * reflection.
+	 *
+	 * @param class_    class to create instances of.
+	 * @param argument_ class of the constructor argument.
+	 *
+	 * @return factory of the class.
+	 *
+	 * @throws Exception if the class has no such public constructor.
+	 */
+	@NotNull
+	public static <A, T> Factory<A, T> getFactory(@NotNull Class<T> class_,
+		@NotNull Class<A> argument_) throws Exception
+	{
+		return _getFactory(FACTORIES, class_, argument_, false);
+	}
+
+	/**
+	 * get factory that creates instances of class by its constructor with one argument, which may
+	 * be not public. See {@link ClassCache#getFactory}.
+	 *
+	 * @param class_    class to create instances of.
+	 * @param argument_ class of the constructor argument.
+	 *
+	 * @return factory of the class.
+	 *
+	 * @throws Exception if the class has no such constructor.
+	 */
+	@NotNull
+	public static <A, T> Factory<A, T> getDeclaredFactory(@NotNull Class<T> class_,
+		@NotNull Class<A> argument_) throws Exception
+	{
+		return _getFactory(DECLARED_FACTORIES, class_, argument_, true);
+	}
+
+	/**
+	 * get codec generated for class by {@link borg.framework.serializers.GenerateCodec}. The codec
+	 * is looked up once per class.
+	 *
+	 * @param class_ class to get codec of.
+	 *
+	 * @return codec of the class, or {@code null} if no codec was generated for it.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	@SuppressWarnings("unchecked") // codec is generated for the class it is looked up by
+	public static <T> BinaryParser.Codec<T> getCodec(@NotNull Class<T> class_)
+	{
+		return (BinaryParser.Codec<T>)CODECS.get(class_);
+	}
+
+	@NotNull
+	@SuppressWarnings("unchecked") // factories are mapped by classes they are built for
+	private static <A, T> Factory<A, T> _getFactory(
+		@NotNull ClassValue<Map<Class<?>, Factory<?, ?>>> cache_,
+		@NotNull Class<T> class_,
+		@NotNull Class<A> argument_,
+		boolean declared_) throws Exception
+	{
+		Map<Class<?>, Factory<?, ?>> factories = cache_.get(class_);
+
+		// if factory was not built yet
+		Factory<?, ?> factory = factories.get(argument_);
+		if (factory == null)
+		{
+			factory = _buildFactory(class_, argument_, declared_);
+			factories.putIfAbsent(argument_, factory);
+		}
+
+		return (Factory<A, T>)factory;
+	}
+
+	@NotNull
+	private static <A, T> Factory<A, T> _buildFactory(@NotNull Class<T> class_,
+		@NotNull Class<A> argument_,
+		boolean declared_) throws Exception
+	{
+		Constructor<T> constructor = declared_ ? class_.getDeclaredConstructor(argument_) :
+			class_.getConstructor(argument_);
+		constructor.setAccessible(true);
+		MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor);
+
+		// spin factory class that calls the constructor directly
+		try
+		{
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(class_, MethodHandles.lookup());
+			CallSite site = LambdaMetafactory.metafactory(lookup,
+				NAME_CREATE,
+				MethodType.methodType(Factory.class),
+				MethodType.methodType(Object.class, Object.class),
+				handle,
+				MethodType.methodType(class_, argument_));
+
+			//noinspection unchecked
+			return (Factory<A, T>)site.getTarget().invoke();
+		}
+		catch (Throwable e)
+		{
+			// class is not open to factory class, so method handle is used instead
+		}
+
+		MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+		return argument ->
+		{
+			try
+			{
+				//noinspection unchecked
+				return (T)generic.invokeExact((Object)argument);
+			}
+			catch (Exception | Error e)
+			{
+				throw e;
+			}
+			catch (Throwable e)
+			{
+				throw new Exception(e);
+			}
+		};
+	}
+
+	@Nullable
+	private static BinaryParser.Codec<?> _loadCodec(@NotNull Class<?> type_)
+	{
+		// codec of nested class is named by its enclosing classes, separated by '_'
+		String packageName = type_.getPackageName();
+		int start = packageName.isEmpty() ? 0 : packageName.length() + 1;
+		String name = type_.getName().substring(start).replace('$', '_') + SUFFIX_CODEC;
+		if (packageName.isEmpty() == false)
+		{
+			name = packageName + '.' + name;
+		}
+
+		// if codec was not generated
+		Class<?> codec;
+		try
+		{
+			codec = Class.forName(name, true, type_.getClassLoader());
+		}
+		catch (ClassNotFoundException e)
+		{
+			return null;
+		}
+
+		// if class with codec name is not a codec
+		if (BinaryParser.Codec.class.isAssignableFrom(codec) == false)
+		{
+			return null;
+		}
+
+		try
+		{
+			return (BinaryParser.Codec<?>)codec.getField(NAME_INSTANCE).get(null);
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+	}
+}
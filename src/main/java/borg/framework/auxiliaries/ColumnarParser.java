@@ -0,0 +1,353 @@
+package borg.framework.auxiliaries;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import borg.framework.collections.DoubleArray;
+import borg.framework.collections.LongArray;
+
+/**
+ * writes batches of records column by column: all values of one field, then all values of the
+ * next one. Columns of homogeneous records, e.g. location samples, are encoded more compactly than
+ * rows, and are decoded straight into primitive arrays. Columns are read in the order they were
+ * written, each by the reader of its type.
+ */
+public final class ColumnarParser
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	public enum Encoding
+	{
+		/** values are written one by one, in the writer format **/
+		PLAIN,
+
+		/** first value and differences between consecutive values are written as varints **/
+		DELTA,
+
+		/** distinct values are written once, followed by varint index of each value **/
+		DICTIONARY
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Contract(pure = true)
+	private ColumnarParser()
+	{
+		// private constructor to prevent instantiation
+	}
+
+	/**
+	 * write column of integer field of records.
+	 *
+	 * @param records_  records to write the field of.
+	 * @param field_    gets the field of record.
+	 * @param encoding_ encoding of the column.
+	 * @param writer_   writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static <T> int writeLongs(@NotNull List<T> records_,
+		@NotNull ToLongFunction<? super T> field_,
+		@NotNull Encoding encoding_,
+		@NotNull BinaryParser.Writer writer_)
+	{
+		long[] values = new long[records_.size()];
+		for (int i = 0; i < values.length; ++i)
+		{
+			values[i] = field_.applyAsLong(records_.get(i));
+		}
+
+		return writeLongs(values, 0, values.length, encoding_, writer_);
+	}
+
+	/**
+	 * write column of integers.
+	 *
+	 * @param values_   array holding the column.
+	 * @param offset_   offset of the column in the array.
+	 * @param length_   length of the column.
+	 * @param encoding_ encoding of the column.
+	 * @param writer_   writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeLongs(long @NotNull [] values_,
+		int offset_,
+		int length_,
+		@NotNull Encoding encoding_,
+		@NotNull BinaryParser.Writer writer_)
+	{
+		int size = BinaryParser.writeEnum(encoding_, writer_);
+		size += BinaryParser.writeLength(length_, writer_);
+
+		int end = offset_ + length_;
+		switch (encoding_)
+		{
+			case PLAIN ->
+			{
+				for (int i = offset_; i < end; ++i)
+				{
+					size += BinaryParser.writeSignedInteger(values_[i],
+						BinaryParser.SIZE_INT64,
+						writer_);
+				}
+			}
+			case DELTA ->
+			{
+				long previous = 0;
+				for (int i = offset_; i < end; ++i)
+				{
+					size += BinaryParser.writeVarint(_zigzag(values_[i] - previous), writer_);
+					previous = values_[i];
+				}
+			}
+			case DICTIONARY ->
+			{
+				// build dictionary
+				HashMap<Long, Integer> indexes = new HashMap<>();
+				int[] entries = new int[length_];
+				long[] dictionary = new long[length_];
+				for (int i = 0; i < length_; ++i)
+				{
+					long value = values_[offset_ + i];
+					Integer index = indexes.putIfAbsent(value, indexes.size());
+					if (index == null)
+					{
+						index = indexes.size() - 1;
+						dictionary[index] = value;
+					}
+					entries[i] = index;
+				}
+
+				// write dictionary and indexes
+				size += BinaryParser.writeLength(indexes.size(), writer_);
+				for (int i = 0; i < indexes.size(); ++i)
+				{
+					size += BinaryParser.writeVarint(_zigzag(dictionary[i]), writer_);
+				}
+				for (int entry : entries)
+				{
+					size += BinaryParser.writeVarint(entry, writer_);
+				}
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * write column of real field of records.
+	 *
+	 * @param records_  records to write the field of.
+	 * @param field_    gets the field of record.
+	 * @param encoding_ encoding of the column, {@link Encoding#PLAIN} or
+	 *                  {@link Encoding#DICTIONARY}.
+	 * @param writer_   writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static <T> int writeDoubles(@NotNull List<T> records_,
+		@NotNull ToDoubleFunction<? super T> field_,
+		@NotNull Encoding encoding_,
+		@NotNull BinaryParser.Writer writer_)
+	{
+		double[] values = new double[records_.size()];
+		for (int i = 0; i < values.length; ++i)
+		{
+			values[i] = field_.applyAsDouble(records_.get(i));
+		}
+
+		return writeDoubles(values, 0, values.length, encoding_, writer_);
+	}
+
+	/**
+	 * write column of reals.
+	 *
+	 * @param values_   array holding the column.
+	 * @param offset_   offset of the column in the array.
+	 * @param length_   length of the column.
+	 * @param encoding_ encoding of the column, {@link Encoding#PLAIN} or
+	 *                  {@link Encoding#DICTIONARY}.
+	 * @param writer_   writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int writeDoubles(double @NotNull [] values_,
+		int offset_,
+		int length_,
+		@NotNull Encoding encoding_,
+		@NotNull BinaryParser.Writer writer_)
+	{
+		// if reals cannot be written by the encoding
+		if ((encoding_ != Encoding.PLAIN) && (encoding_ != Encoding.DICTIONARY))
+		{
+			throw new IllegalArgumentException(encoding_ + " encoding of reals");
+		}
+
+		int size = BinaryParser.writeEnum(encoding_, writer_);
+		size += BinaryParser.writeLength(length_, writer_);
+
+		int end = offset_ + length_;
+		if (encoding_ == Encoding.PLAIN)
+		{
+			for (int i = offset_; i < end; ++i)
+			{
+				size += BinaryParser.writeReal(values_[i], writer_);
+			}
+
+			return size;
+		}
+
+		// build dictionary, reals are compared by their bits
+		HashMap<Long, Integer> indexes = new HashMap<>();
+		int[] entries = new int[length_];
+		double[] dictionary = new double[length_];
+		for (int i = 0; i < length_; ++i)
+		{
+			double value = values_[offset_ + i];
+			Integer index = indexes.putIfAbsent(Double.doubleToRawLongBits(value), indexes.size());
+			if (index == null)
+			{
+				index = indexes.size() - 1;
+				dictionary[index] = value;
+			}
+			entries[i] = index;
+		}
+
+		// write dictionary and indexes
+		size += BinaryParser.writeLength(indexes.size(), writer_);
+		for (int i = 0; i < indexes.size(); ++i)
+		{
+			size += BinaryParser.writeReal(dictionary[i], writer_);
+		}
+		for (int entry : entries)
+		{
+			size += BinaryParser.writeVarint(entry, writer_);
+		}
+
+		return size;
+	}
+
+	/**
+	 * read column written by {@link ColumnarParser#writeLongs}.
+	 *
+	 * @param reader_ reader to use.
+	 *
+	 * @return read column.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static LongArray readLongs(@NotNull BinaryParser.Reader reader_)
+	{
+		Encoding encoding = BinaryParser.readEnum(reader_, Encoding.class);
+		long[] values = new long[BinaryParser.readLength(reader_)];
+
+		switch (encoding)
+		{
+			case PLAIN ->
+			{
+				for (int i = 0; i < values.length; ++i)
+				{
+					values[i] = BinaryParser.readSignedInteger(reader_, BinaryParser.SIZE_INT64);
+				}
+			}
+			case DELTA ->
+			{
+				long value = 0;
+				for (int i = 0; i < values.length; ++i)
+				{
+					value += _unzigzag(BinaryParser.readVarint(reader_));
+					values[i] = value;
+				}
+			}
+			case DICTIONARY ->
+			{
+				long[] dictionary = new long[BinaryParser.readLength(reader_)];
+				for (int i = 0; i < dictionary.length; ++i)
+				{
+					dictionary[i] = _unzigzag(BinaryParser.readVarint(reader_));
+				}
+				for (int i = 0; i < values.length; ++i)
+				{
+					values[i] = dictionary[(int)BinaryParser.readVarint(reader_)];
+				}
+			}
+		}
+
+		return new LongArray(values);
+	}
+
+	/**
+	 * read column written by {@link ColumnarParser#writeDoubles}.
+	 *
+	 * @param reader_ reader to use.
+	 *
+	 * @return read column.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static DoubleArray readDoubles(@NotNull BinaryParser.Reader reader_)
+	{
+		Encoding encoding = BinaryParser.readEnum(reader_, Encoding.class);
+		double[] values = new double[BinaryParser.readLength(reader_)];
+
+		switch (encoding)
+		{
+			case PLAIN ->
+			{
+				for (int i = 0; i < values.length; ++i)
+				{
+					values[i] = BinaryParser.readReal(reader_);
+				}
+			}
+			case DICTIONARY ->
+			{
+				double[] dictionary = new double[BinaryParser.readLength(reader_)];
+				for (int i = 0; i < dictionary.length; ++i)
+				{
+					dictionary[i] = BinaryParser.readReal(reader_);
+				}
+				for (int i = 0; i < values.length; ++i)
+				{
+					values[i] = dictionary[(int)BinaryParser.readVarint(reader_)];
+				}
+			}
+			default -> throw new IllegalStateException(encoding + " encoding of reals");
+		}
+
+		return new DoubleArray(values);
+	}
+
+	@Contract(pure = true)
+	private static long _zigzag(long value_)
+	{
+		return (value_ << 1) ^ (value_ >> 63);
+	}
+
+	@Contract(pure = true)
+	private static long _unzigzag(long value_)
+	{
+		return (value_ >>> 1) ^ -(value_ & 1);
+	}
+}
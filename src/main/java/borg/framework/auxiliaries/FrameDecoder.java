@@ -0,0 +1,309 @@
+package borg.framework.auxiliaries;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * decodes objects from stream received in chunks of any size, e.g. from TCP socket or WebSocket.
+ * Each object is sent as frame, which is its length written by {@link BinaryParser#writeLength}
+ * followed by the object, see {@link FrameDecoder#writeFrame}. Frames completely contained in fed
+ * chunk are decoded in place, and only the incomplete frame is buffered, up to the maximal frame
+ * size. The decoder is not thread-safe and should be fed by single thread, e.g. the read thread.
+ *
+ * @param <T> class of decoded objects.
+ */
+public final class FrameDecoder<T extends BinaryParser.BinarySerializable>
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** maximal number of bytes of varint length **/
+	private static final int MAX_SIZE_VARINT_LENGTH = 5;
+
+	/** empty frame **/
+	private static final ByteBuffer EMPTY_FRAME = ByteBuffer.allocate(0);
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	private enum State
+	{
+		/** length of frame is read **/
+		LENGTH,
+
+		/** frame is read **/
+		FRAME
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** creates objects from frames **/
+	@NotNull
+	private final ClassCache.Factory<BinaryParser.Reader, T> mFactory;
+
+	/** format of frames **/
+	@NotNull
+	private final BinaryParser.Format mFormat;
+
+	/** maximal length of frame **/
+	private final int mMaxFrameSize;
+
+	/** decoded objects, not polled yet **/
+	@NotNull
+	private final ArrayDeque<T> mObjects;
+
+	/** current state **/
+	@NotNull
+	private State mState;
+
+	/** length of current frame, accumulated while its bytes are read **/
+	private int mLength;
+
+	/** number of read bytes of the current frame length **/
+	private int mLengthSize;
+
+	/** buffer of incomplete frame, reused between frames **/
+	private byte @Nullable [] mFrame;
+
+	/** number of buffered bytes of incomplete frame **/
+	private int mFrameIndex;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * @param class_        class of decoded objects. Its generated codec is used if exists,
+	 *                      otherwise its public constructor with reader argument.
+	 * @param format_       format of frames.
+	 * @param maxFrameSize_ maximal length of frame. Longer frame fails the decoder.
+	 *
+	 * @throws Exception if the class has no codec and no public constructor with reader
+	 *                   argument.
+	 */
+	public FrameDecoder(@NotNull Class<T> class_,
+		@NotNull BinaryParser.Format format_,
+		int maxFrameSize_) throws Exception
+	{
+		// if codec was generated for the class
+		BinaryParser.Codec<T> codec = ClassCache.getCodec(class_);
+		mFactory = (codec != null) ? codec::read :
+			ClassCache.getFactory(class_, BinaryParser.Reader.class);
+
+		mFormat = format_;
+		mMaxFrameSize = maxFrameSize_;
+		mObjects = new ArrayDeque<>();
+		mState = State.LENGTH;
+	}
+
+	/**
+	 * write object as frame.
+	 *
+	 * @param object_ object to write.
+	 * @param writer_ writer to write with.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static <T extends BinaryParser.BinarySerializable> int writeFrame(@NotNull T object_,
+		@NotNull BinaryParser.Writer writer_)
+	{
+		// if codec was generated for the object class, its size is known in advance
+		@SuppressWarnings("unchecked")
+		BinaryParser.Codec<T> codec =
+			(BinaryParser.Codec<T>)ClassCache.getCodec(object_.getClass());
+		if (codec != null)
+		{
+			int size = codec.size(object_, writer_.getFormat());
+			return BinaryParser.writeLength(size, writer_) + codec.write(object_, writer_);
+		}
+
+		// serialize the object to learn its size
+		BinaryParser.Writer frame = BinaryParser.Writer.obtain(0, writer_.getFormat());
+		try
+		{
+			object_.serialize(frame);
+			int length = frame.length();
+			int size = BinaryParser.writeLength(length, writer_);
+			writer_.push(frame.getContent(), 0, length);
+
+			return size + length;
+		}
+		finally
+		{
+			frame.recycle();
+		}
+	}
+
+	/**
+	 * feed next chunk of the stream.
+	 *
+	 * @param chunk_ chunk to feed.
+	 *
+	 * @return number of objects decoded from the chunk.
+	 *
+	 * @throws Exception if frame is malformed, too long or its object cannot be created. The
+	 *                   decoder must not be fed after that.
+	 */
+	public int feed(byte @NotNull [] chunk_) throws Exception
+	{
+		return feed(ByteBuffer.wrap(chunk_));
+	}
+
+	/**
+	 * feed next chunk of the stream.
+	 *
+	 * @param chunk_  array holding the chunk.
+	 * @param offset_ offset of the chunk in the array.
+	 * @param length_ length of the chunk.
+	 *
+	 * @return number of objects decoded from the chunk.
+	 *
+	 * @throws Exception if frame is malformed, too long or its object cannot be created. The
+	 *                   decoder must not be fed after that.
+	 */
+	public int feed(byte @NotNull [] chunk_, int offset_, int length_) throws Exception
+	{
+		return feed(ByteBuffer.wrap(chunk_, offset_, length_));
+	}
+
+	/**
+	 * feed next chunk of the stream. The chunk may be heap or direct buffer.
+	 *
+	 * @param chunk_ buffer holding the chunk in its remaining bytes. Its position is advanced to
+	 *               its limit.
+	 *
+	 * @return number of objects decoded from the chunk.
+	 *
+	 * @throws Exception if frame is malformed, too long or its object cannot be created. The
+	 *                   decoder must not be fed after that.
+	 */
+	public int feed(@NotNull ByteBuffer chunk_) throws Exception
+	{
+		int count = mObjects.size();
+
+		while (chunk_.hasRemaining() == true)
+		{
+			// if frame length is read
+			if (mState == State.LENGTH)
+			{
+				_readLength(chunk_);
+				continue;
+			}
+
+			// if whole frame is in the chunk, decode it in place
+			int position = chunk_.position();
+			if ((mFrameIndex == 0) && (chunk_.remaining() >= mLength))
+			{
+				chunk_.position(position + mLength);
+				_decode(chunk_.slice(position, mLength));
+				continue;
+			}
+
+			// buffer part of the frame
+			if ((mFrame == null) || (mFrame.length < mLength))
+			{
+				mFrame = new byte[mLength];
+			}
+			int length = Math.min(mLength - mFrameIndex, chunk_.remaining());
+			chunk_.get(mFrame, mFrameIndex, length);
+			mFrameIndex += length;
+
+			// if frame is complete
+			if (mFrameIndex == mLength)
+			{
+				_decode(ByteBuffer.wrap(mFrame, 0, mLength));
+			}
+		}
+
+		return mObjects.size() - count;
+	}
+
+	/**
+	 * get next decoded object.
+	 *
+	 * @return next decoded object, or {@code null} if all decoded objects were polled.
+	 */
+	@Nullable
+	public T poll()
+	{
+		return mObjects.poll();
+	}
+
+	/**
+	 * @return number of bytes of incomplete frame, buffered until its rest is fed.
+	 */
+	@Contract(pure = true)
+	public int getPendingSize()
+	{
+		return mFrameIndex;
+	}
+
+	private void _readLength(@NotNull ByteBuffer chunk_) throws Exception
+	{
+		int b = chunk_.get() & 0xff;
+		++mLengthSize;
+
+		// if lengths are written as varints
+		if (mFormat == BinaryParser.Format.COMPACT)
+		{
+			mLength |= (b & 0x7f) << (7 * (mLengthSize - 1));
+
+			// if more bytes of the length follow
+			if (b >= 0x80)
+			{
+				if (mLengthSize == MAX_SIZE_VARINT_LENGTH)
+				{
+					throw new Exception("malformed frame length");
+				}
+
+				return;
+			}
+		}
+		else
+		{
+			mLength |= b << (8 * (mLengthSize - 1));
+
+			// if more bytes of the length follow
+			if (mLengthSize < BinaryParser.SIZE_ARRAY_LENGTH)
+			{
+				return;
+			}
+		}
+
+		// if frame is too long to buffer
+		if ((mLength < 0) || (mLength > mMaxFrameSize))
+		{
+			throw new Exception(
+				String.format("frame of %d bytes exceeds %d", mLength, mMaxFrameSize));
+		}
+
+		mLengthSize = 0;
+		mState = State.FRAME;
+
+		// if frame is empty
+		if (mLength == 0)
+		{
+			_decode(EMPTY_FRAME);
+		}
+	}
+
+	private void _decode(@NotNull ByteBuffer frame_) throws Exception
+	{
+		BinaryParser.Reader reader = new BinaryParser.Reader(frame_);
+		reader.setFormat(mFormat);
+		mObjects.add(mFactory.create(reader));
+
+		// read next frame
+		mState = State.LENGTH;
+		mLength = 0;
+		mFrameIndex = 0;
+	}
+}
@@ -71,6 +71,30 @@ public class ByteArray extends PrimitiveArray<Byte>
 		return content;
 	}
 
+	/**
+	 * @return number of bytes the array holds without reallocation.
+	 */
+	@Contract(pure = true)
+	public int capacity()
+	{
+		return mBuffer.length;
+	}
+
+	/**
+	 * reallocate the array once, so it holds the given number of bytes without reallocation.
+	 *
+	 * @param capacity_ number of bytes to hold.
+	 */
+	public void ensureCapacity(int capacity_)
+	{
+		if (mBuffer.length < capacity_)
+		{
+			byte[] buffer = new byte[capacity_];
+			System.arraycopy(mBuffer, 0, buffer, 0, mIndex);
+			mBuffer = buffer;
+		}
+	}
+
 	public void push(byte b_)
 	{
 		// write byte
@@ -88,6 +112,15 @@ public class ByteArray extends PrimitiveArray<Byte>
 		mIndex = length;
 	}
 
+	public void push(byte @NotNull [] bytes_, int offset_, int length_)
+	{
+		// write bytes
+		int length = mIndex + length_;
+		_ensureSize(length);
+		System.arraycopy(bytes_, offset_, mBuffer, mIndex, length_);
+		mIndex = length;
+	}
+
 	@Contract(pure = true)
 	public byte pop()
 	{
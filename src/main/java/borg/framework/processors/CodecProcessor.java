@@ -0,0 +1,504 @@
+package borg.framework.processors;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+
+/**
+ * generates {@code BinaryParser.Codec} classes for classes annotated by {@code GenerateCodec}.
+ * Registered as service, so it runs for every project that compiles against the framework.
+ */
+@SupportedAnnotationTypes(CodecProcessor.NAME_ANNOTATION)
+public final class CodecProcessor extends AbstractProcessor
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** name of annotation that requests codec **/
+	static final String NAME_ANNOTATION = "borg.framework.serializers.GenerateCodec";
+
+	/** name of annotation that marks generated code **/
+	private static final String NAME_GENERATED = "javax.annotation.processing.Generated";
+
+	/** name of parser that generated code calls **/
+	private static final String PARSER = "borg.framework.auxiliaries.BinaryParser";
+
+	/** suffix of codec class name **/
+	private static final String SUFFIX_CODEC = "Codec";
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	private enum Kind
+	{
+		BOOLEAN,
+		BYTE,
+		SHORT,
+		CHAR,
+		INT,
+		LONG,
+		FLOAT,
+		DOUBLE,
+		STRING,
+		BYTES,
+		ENUM
+	}
+
+	private record Field(@NotNull String name, @NotNull String type, @NotNull Kind kind,
+		@NotNull String value)
+	{
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Override
+	@Contract(pure = true)
+	@NotNull
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(@NotNull Set<? extends TypeElement> annotations_,
+		@NotNull RoundEnvironment round_)
+	{
+		for (TypeElement annotation : annotations_)
+		{
+			for (Element element : round_.getElementsAnnotatedWith(annotation))
+			{
+				try
+				{
+					_generate((TypeElement)element);
+				}
+				catch (Exception e)
+				{
+					_error(e.toString(), element);
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private void _generate(@NotNull TypeElement type_) throws Exception
+	{
+		// if codec cannot access the class
+		ElementKind kind = type_.getKind();
+		if ((kind != ElementKind.CLASS) && (kind != ElementKind.RECORD))
+		{
+			_error("codec can be generated for class or record only", type_);
+			return;
+		}
+		if ((type_.getModifiers().contains(Modifier.PRIVATE) == true) ||
+			(type_.getModifiers().contains(Modifier.ABSTRACT) == true) ||
+			(type_.getTypeParameters().isEmpty() == false))
+		{
+			_error("codec can be generated for non-private, non-abstract, non-generic class only",
+				type_);
+			return;
+		}
+		NestingKind nesting = type_.getNestingKind();
+		if ((nesting != NestingKind.TOP_LEVEL) &&
+			((nesting != NestingKind.MEMBER) || (type_.getModifiers().contains(Modifier.STATIC) ==
+				false)))
+		{
+			_error("codec can be generated for top level or static nested class only", type_);
+			return;
+		}
+
+		// collect fields
+		List<Field> fields = (kind == ElementKind.RECORD) ? _collectComponents(type_) :
+			_collectFields(type_);
+		if (fields == null)
+		{
+			return;
+		}
+
+		// build codec name
+		String packageName = processingEnv.getElementUtils().getPackageOf(type_).getQualifiedName()
+			.toString();
+		String typeName = type_.getQualifiedName().toString();
+		String codecName = typeName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+			.replace('.', '_') + SUFFIX_CODEC;
+
+		// write codec source
+		String source = _buildSource(packageName,
+			codecName,
+			typeName,
+			kind == ElementKind.RECORD,
+			fields);
+		String name = packageName.isEmpty() ? codecName : packageName + '.' + codecName;
+		try (Writer writer = processingEnv.getFiler().createSourceFile(name, type_).openWriter())
+		{
+			writer.write(source);
+		}
+	}
+
+	@Nullable
+	private List<Field> _collectComponents(@NotNull TypeElement type_)
+	{
+		List<Field> fields = new ArrayList<>();
+		for (RecordComponentElement component : type_.getRecordComponents())
+		{
+			String name = component.getSimpleName().toString();
+			Field field = _buildField(component, component.asType(), name, name + "()");
+			if (field == null)
+			{
+				return null;
+			}
+
+			fields.add(field);
+		}
+
+		return fields;
+	}
+
+	@Nullable
+	private List<Field> _collectFields(@NotNull TypeElement type_)
+	{
+		// if class cannot be created by codec
+		boolean creatable = false;
+		List<? extends Element> members = type_.getEnclosedElements();
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(members))
+		{
+			if ((constructor.getParameters().isEmpty() == true) &&
+				(constructor.getModifiers().contains(Modifier.PRIVATE) == false))
+			{
+				creatable = true;
+				break;
+			}
+		}
+		if (creatable == false)
+		{
+			_error("codec requires non-private constructor without arguments", type_);
+			return null;
+		}
+
+		// collect classes from the topmost superclass, whose fields are written first
+		ArrayList<TypeElement> classes = new ArrayList<>();
+		for (TypeElement type = type_; type != null; type = _getSuperclass(type))
+		{
+			classes.add(0, type);
+		}
+
+		Elements elements = processingEnv.getElementUtils();
+		PackageElement codecPackage = elements.getPackageOf(type_);
+		Set<String> names = new HashSet<>();
+		List<Field> fields = new ArrayList<>();
+		for (TypeElement type : classes)
+		{
+			boolean inherited = type != type_;
+			boolean samePackage = elements.getPackageOf(type).equals(codecPackage);
+			for (VariableElement variable : ElementFilter.fieldsIn(type.getEnclosedElements()))
+			{
+				Set<Modifier> modifiers = variable.getModifiers();
+				if ((modifiers.contains(Modifier.STATIC) == true) ||
+					(modifiers.contains(Modifier.TRANSIENT) == true))
+				{
+					continue;
+				}
+
+				// if codec cannot access the field
+				if ((modifiers.contains(Modifier.PRIVATE) == true) ||
+					(modifiers.contains(Modifier.FINAL) == true))
+				{
+					String message = "codec requires non-private, non-final field";
+					if (inherited == true)
+					{
+						message += " of superclass " + type.getQualifiedName();
+					}
+					_error(message, variable);
+					return null;
+				}
+				if ((samePackage == false) && (modifiers.contains(Modifier.PUBLIC) == false))
+				{
+					_error("codec requires public field of superclass from other package " +
+						type.getQualifiedName(), variable);
+					return null;
+				}
+
+				// if field hides field of superclass
+				String name = variable.getSimpleName().toString();
+				if (names.add(name) == false)
+				{
+					_error("codec does not support field hiding field of superclass", variable);
+					return null;
+				}
+
+				Field field = _buildField(variable, variable.asType(), name, name);
+				if (field == null)
+				{
+					return null;
+				}
+
+				fields.add(field);
+			}
+		}
+
+		return fields;
+	}
+
+	@Nullable
+	private TypeElement _getSuperclass(@NotNull TypeElement type_)
+	{
+		TypeMirror superclass = type_.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED)
+		{
+			return null;
+		}
+
+		return (TypeElement)processingEnv.getTypeUtils().asElement(superclass);
+	}
+
+	@Nullable
+	private Field _buildField(@NotNull Element element_,
+		@NotNull TypeMirror type_,
+		@NotNull String name_,
+		@NotNull String value_)
+	{
+		Kind kind = switch (type_.getKind())
+		{
+			case BOOLEAN -> Kind.BOOLEAN;
+			case BYTE -> Kind.BYTE;
+			case SHORT -> Kind.SHORT;
+			case CHAR -> Kind.CHAR;
+			case INT -> Kind.INT;
+			case LONG -> Kind.LONG;
+			case FLOAT -> Kind.FLOAT;
+			case DOUBLE -> Kind.DOUBLE;
+			case ARRAY -> (((ArrayType)type_).getComponentType().getKind() == TypeKind.BYTE) ?
+				Kind.BYTES : null;
+			case DECLARED ->
+			{
+				Element element = processingEnv.getTypeUtils().asElement(type_);
+				if (element.getKind() == ElementKind.ENUM)
+				{
+					yield Kind.ENUM;
+				}
+
+				yield String.class.getName().equals(((TypeElement)element).getQualifiedName()
+					.toString()) ? Kind.STRING : null;
+			}
+			default -> null;
+		};
+
+		// if type has no encoding
+		if (kind == null)
+		{
+			_error("codec does not support type " + type_, element_);
+			return null;
+		}
+
+		// name enum by its element, since type string may hold type annotations
+		String type = type_.toString();
+		if (kind == Kind.ENUM)
+		{
+			Element element = processingEnv.getTypeUtils().asElement(type_);
+			type = ((TypeElement)element).getQualifiedName().toString();
+		}
+
+		return new Field(name_, type, kind, value_);
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private String _buildSource(@NotNull String package_,
+		@NotNull String codec_,
+		@NotNull String type_,
+		boolean record_,
+		@NotNull List<Field> fields_)
+	{
+		StringBuilder source = new StringBuilder();
+		if (package_.isEmpty() == false)
+		{
+			source.append("package ").append(package_).append(";\n\n");
+		}
+		if (processingEnv.getElementUtils().getTypeElement(NAME_GENERATED) != null)
+		{
+			source.append('@').append(NAME_GENERATED).append("(\"")
+				.append(CodecProcessor.class.getName()).append("\")\n");
+		}
+		source.append("public final class ").append(codec_).append(" implements ").append(PARSER)
+			.append(".Codec<").append(type_).append(">\n{\n");
+		source.append("\tpublic static final ").append(codec_).append(" INSTANCE = new ")
+			.append(codec_).append("();\n\n");
+		source.append("\tprivate ").append(codec_).append("()\n\t{\n\t}\n\n");
+
+		// size
+		source.append("\t@Override\n\tpublic int size(").append(type_).append(" object_, ")
+			.append(PARSER).append(".Format format_)\n\t{\n\t\tint size = 0;\n");
+		for (Field field : fields_)
+		{
+			source.append("\t\tsize += ").append(_buildSize(field, "object_." + field.value))
+				.append(";\n");
+		}
+		source.append("\t\treturn size;\n\t}\n\n");
+
+		// write
+		source.append("\t@Override\n\tpublic int write(").append(type_).append(" object_, ")
+			.append(PARSER).append(".Writer writer_)\n\t{\n\t\tint size = 0;\n");
+		for (Field field : fields_)
+		{
+			source.append("\t\tsize += ").append(_buildWrite(field, "object_." + field.value))
+				.append(";\n");
+		}
+		source.append("\t\treturn size;\n\t}\n\n");
+
+		// read
+		source.append("\t@Override\n\tpublic ").append(type_).append(" read(").append(PARSER)
+			.append(".Reader reader_)\n\t{\n");
+		if (record_ == true)
+		{
+			source.append("\t\treturn new ").append(type_).append('(');
+			for (int i = 0; i < fields_.size(); ++i)
+			{
+				source.append((i == 0) ? "\n\t\t\t" : ",\n\t\t\t")
+					.append(_buildRead(fields_.get(i)));
+			}
+			source.append(");\n");
+		}
+		else
+		{
+			source.append("\t\t").append(type_).append(" object = new ").append(type_)
+				.append("();\n");
+			for (Field field : fields_)
+			{
+				source.append("\t\tobject.").append(field.name).append(" = ")
+					.append(_buildRead(field)).append(";\n");
+			}
+			source.append("\t\treturn object;\n");
+		}
+		source.append("\t}\n}\n");
+
+		return source.toString();
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildSize(@NotNull Field field_, @NotNull String value_)
+	{
+		return switch (field_.kind)
+		{
+			case BOOLEAN -> PARSER + ".sizeOfInteger(" + value_ + " ? 1 : 0, " + PARSER +
+				".SIZE_INT8, format_)";
+			case BYTE -> _buildSizeOfSigned(value_, "SIZE_INT8");
+			case SHORT -> _buildSizeOfSigned(value_, "SIZE_INT16");
+			case CHAR -> PARSER + ".sizeOfInteger(" + value_ + ", " + PARSER +
+				".SIZE_INT16, format_)";
+			case INT -> _buildSizeOfSigned(value_, "SIZE_INT32");
+			case LONG -> _buildSizeOfSigned(value_, "SIZE_INT64");
+			case FLOAT -> PARSER + ".SIZE_FLOAT";
+			case DOUBLE -> PARSER + ".SIZE_DOUBLE";
+			case STRING -> PARSER + ".sizeOfString(" + value_ + ", format_)";
+			case BYTES -> PARSER + ".sizeOfLength(" + value_ + ".length, format_) + " + value_ +
+				".length";
+			case ENUM -> PARSER + ".sizeOfInteger(" + value_ + ".ordinal(), " + PARSER +
+				".SIZE_INT8, format_)";
+		};
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildSizeOfSigned(@NotNull String value_, @NotNull String size_)
+	{
+		return PARSER + ".sizeOfSignedInteger(" + value_ + ", " + PARSER + '.' + size_ +
+			", format_)";
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildWrite(@NotNull Field field_, @NotNull String value_)
+	{
+		return switch (field_.kind)
+		{
+			case BOOLEAN -> PARSER + ".writeInteger(" + value_ + " ? 1 : 0, " + PARSER +
+				".SIZE_INT8, writer_)";
+			case BYTE -> _buildWriteSigned(value_, "SIZE_INT8");
+			case SHORT -> _buildWriteSigned(value_, "SIZE_INT16");
+			case CHAR -> PARSER + ".writeInteger(" + value_ + ", " + PARSER +
+				".SIZE_INT16, writer_)";
+			case INT -> _buildWriteSigned(value_, "SIZE_INT32");
+			case LONG -> _buildWriteSigned(value_, "SIZE_INT64");
+			case FLOAT -> PARSER + ".writeFloat(" + value_ + ", writer_)";
+			case DOUBLE -> PARSER + ".writeReal(" + value_ + ", writer_)";
+			case STRING -> PARSER + ".writeString(" + value_ + ", writer_)";
+			case BYTES -> PARSER + ".writeIntegers(" + value_ + ", writer_)";
+			case ENUM -> PARSER + ".writeEnum(" + value_ + ", writer_)";
+		};
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildWriteSigned(@NotNull String value_, @NotNull String size_)
+	{
+		return PARSER + ".writeSignedInteger(" + value_ + ", " + PARSER + '.' + size_ +
+			", writer_)";
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildRead(@NotNull Field field_)
+	{
+		return switch (field_.kind)
+		{
+			case BOOLEAN -> PARSER + ".readInteger(reader_, " + PARSER + ".SIZE_INT8) != 0";
+			case BYTE -> "(byte)" + _buildReadSigned("SIZE_INT8");
+			case SHORT -> "(short)" + _buildReadSigned("SIZE_INT16");
+			case CHAR -> "(char)" + PARSER + ".readInteger(reader_, " + PARSER + ".SIZE_INT16)";
+			case INT -> "(int)" + _buildReadSigned("SIZE_INT32");
+			case LONG -> _buildReadSigned("SIZE_INT64");
+			case FLOAT -> "(float)" + PARSER + ".readFloat(reader_)";
+			case DOUBLE -> PARSER + ".readReal(reader_)";
+			case STRING -> PARSER + ".readString(reader_)";
+			case BYTES -> PARSER + ".readBytes(reader_)";
+			case ENUM -> PARSER + ".readEnum(reader_, " + field_.type + ".class)";
+		};
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static String _buildReadSigned(@NotNull String size_)
+	{
+		return PARSER + ".readSignedInteger(reader_, " + PARSER + '.' + size_ + ')';
+	}
+
+	private void _error(@NotNull String message_, @NotNull Element element_)
+	{
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message_, element_);
+	}
+}
@@ -129,7 +129,7 @@ public class BinarySerialized extends Serialized
 	{
 		try
 		{
-			return write(this);
+			return SchemaCodec.write(this);
 		}
 		catch (Exception e)
 		{
@@ -139,6 +139,14 @@ public class BinarySerialized extends Serialized
 		return null;
 	}
 
+	/**
+	 * deserialize the state. State stored by {@link SchemaCodec} is decoded directly into the
+	 * instance, state stored with java serialization is read as new instance.
+	 *
+	 * @param data_ stored state.
+	 *
+	 * @return deserialized state.
+	 */
 	@Override
 	@Contract(pure = true)
 	@Nullable
@@ -146,6 +154,13 @@ public class BinarySerialized extends Serialized
 	{
 		try
 		{
+			// if state was stored by schema codec
+			if (SchemaCodec.isEncoded(data_) == true)
+			{
+				SchemaCodec.read(data_, this);
+				return this;
+			}
+
 			return read(data_);
 		}
 		catch (Throwable e)
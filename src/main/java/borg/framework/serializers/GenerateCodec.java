@@ -0,0 +1,26 @@
+package borg.framework.serializers;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * generate {@link borg.framework.auxiliaries.BinaryParser.Codec} for the annotated class at compile
+ * time. The codec is named after the class, with enclosing classes separated by '_' and suffixed
+ * by "Codec", e.g. {@code Outer_InnerCodec}, and is exposed by its {@code INSTANCE} field.
+ * <p>
+ * The codec writes the fields in declaration order. Fields of records are read by their
+ * accessors and passed to the canonical constructor. Fields of other classes must be non-private
+ * and non-final, and the class must have non-private constructor without arguments. Fields of
+ * superclasses are written first and must be public if the superclass is in other package, and
+ * may not be hidden by fields of subclasses. Static and transient fields are skipped. Supported
+ * field types are primitives, non-null strings, byte arrays and enums.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateCodec
+{
+}
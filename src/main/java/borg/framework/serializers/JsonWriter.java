@@ -0,0 +1,806 @@
+package borg.framework.serializers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * writes JSON as UTF-8 straight into reusable byte buffer, without building JSON objects first.
+ * The writer does not validate the structure, names and values must be written in valid order by
+ * the caller.
+ * <p>
+ * Strings and numbers are written in the same text as by {@link org.json.JSONObject}: the same
+ * characters are escaped, and trailing zeros of decimal fractions are stripped. Fields and elements
+ * of collections that org.json rejects, as infinite and NaN reals, are skipped. The whole JSON may
+ * still differ from {@link org.json.JSONObject#toString}: keys keep the order of the written map,
+ * unpaired surrogates are written as '?', and unknown objects in arrays are written as strings of
+ * {@link Object#toString} rather than as beans.
+ * <p>
+ * Writer without stream accumulates the whole JSON, and grows its buffer as needed. Writer to
+ * stream writes its buffer to the stream whenever it is full, so its buffer size is fixed. Failure
+ * of the stream is thrown by {@link JsonWriter#flush}, further output is discarded until then.
+ */
+public final class JsonWriter
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** initial size of buffer **/
+	private static final int MIN_SIZE_BUFFER = 256;
+
+	/** size of buffer of writer to stream **/
+	private static final int SIZE_STREAM_BUFFER = 8192;
+
+	/** maximal number of bytes written for single character **/
+	private static final int MAX_SIZE_CHAR = 6;
+
+	/** maximal number of bytes of long number **/
+	private static final int MAX_SIZE_LONG = 20;
+
+	/** doubles of smaller magnitude with no fraction are written without exponent, as longs **/
+	private static final double MAX_INTEGRAL_DOUBLE = 1e7;
+
+	/** bits of negative zero, which is written as "-0" **/
+	private static final long BITS_NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+	/** numbers written as is, other numbers are written as strings **/
+	private static final Pattern PATTERN_NUMBER =
+		Pattern.compile("-?(?:0|[1-9]\\d*)(?:\\.\\d+)?(?:[eE][+-]?\\d+)?");
+
+	/** maximal number of writers pooled by each thread **/
+	private static final int MAX_POOLED_WRITERS = 4;
+
+	/** maximal size of pooled writer buffer, writers with larger buffers are released **/
+	private static final int MAX_SIZE_POOLED_WRITER = 1 << 20;
+
+	/** writers pooled by each thread **/
+	private static final ThreadLocal<ArrayDeque<JsonWriter>> WRITERS =
+		ThreadLocal.withInitial(ArrayDeque::new);
+
+	/** digits of escaped characters **/
+	private static final byte[] HEX_DIGITS =
+		"0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	/** characters escaped by org.json besides control ones, C1 controls and general punctuation **/
+	private static final char MIN_ESCAPED_C1 = 0x80;
+
+	private static final char MAX_ESCAPED_C1 = 0x9f;
+
+	private static final char MIN_ESCAPED_PUNCTUATION = 0x2000;
+
+	private static final char MAX_ESCAPED_PUNCTUATION = 0x20ff;
+
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** buffer of written bytes **/
+	private byte @NotNull [] mBuffer;
+
+	/** number of bytes in the buffer **/
+	private int mLength;
+
+	/** stream to write to, or null if the whole JSON is accumulated in the buffer **/
+	@Nullable
+	private OutputStream mStream;
+
+	/** first failure of the stream **/
+	@Nullable
+	private Exception mError;
+
+	/** whether next name or value follows previous value and must be separated from it **/
+	private boolean mSeparate;
+
+	/** whether the writer is in the pool, so it cannot be recycled again **/
+	private boolean mPooled;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	public JsonWriter()
+	{
+		this(MIN_SIZE_BUFFER);
+	}
+
+	/**
+	 * @param capacity_ estimated size of written JSON.
+	 */
+	public JsonWriter(int capacity_)
+	{
+		mBuffer = new byte[Math.max(capacity_, MAX_SIZE_LONG)];
+	}
+
+	/**
+	 * @param stream_ stream to write to.
+	 */
+	public JsonWriter(@NotNull OutputStream stream_)
+	{
+		this(SIZE_STREAM_BUFFER);
+		mStream = stream_;
+	}
+
+	/**
+	 * obtain writer from pool of the current thread, or create new one if the pool is empty.
+	 * The writer should be returned with {@link JsonWriter#recycle} once its output is consumed.
+	 *
+	 * @param stream_ stream to write to, or {@code null} to accumulate the whole JSON.
+	 *
+	 * @return empty writer.
+	 */
+	@NotNull
+	public static JsonWriter obtain(@Nullable OutputStream stream_)
+	{
+		// if pool is empty
+		JsonWriter writer = WRITERS.get().poll();
+		if (writer == null)
+		{
+			writer = new JsonWriter((stream_ != null) ? SIZE_STREAM_BUFFER : MIN_SIZE_BUFFER);
+		}
+
+		writer.mPooled = false;
+		writer.mStream = stream_;
+
+		return writer;
+	}
+
+	/**
+	 * return writer to pool of the current thread. The writer must not be used after that.
+	 * Writers with too large buffers are not pooled. Recycling writer that is already pooled does
+	 * nothing.
+	 */
+	public void recycle()
+	{
+		// if writer cannot be reused, or was recycled already
+		if ((mPooled == true) || (mBuffer.length > MAX_SIZE_POOLED_WRITER))
+		{
+			return;
+		}
+
+		ArrayDeque<JsonWriter> pool = WRITERS.get();
+		if (pool.size() < MAX_POOLED_WRITERS)
+		{
+			clear();
+			mStream = null;
+			mPooled = true;
+			pool.push(this);
+		}
+	}
+
+	public void beginObject()
+	{
+		_separate();
+		_write((byte)'{');
+		mSeparate = false;
+	}
+
+	public void endObject()
+	{
+		_write((byte)'}');
+		mSeparate = true;
+	}
+
+	public void beginArray()
+	{
+		_separate();
+		_write((byte)'[');
+		mSeparate = false;
+	}
+
+	public void endArray()
+	{
+		_write((byte)']');
+		mSeparate = true;
+	}
+
+	/**
+	 * write name of the next value in object.
+	 *
+	 * @param name_ name to write.
+	 */
+	public void name(@NotNull String name_)
+	{
+		_separate();
+		_writeString(name_);
+		_write((byte)':');
+		mSeparate = false;
+	}
+
+	/**
+	 * write named integer field of object.
+	 *
+	 * @param name_  name of the field.
+	 * @param value_ value of the field.
+	 */
+	public void field(@NotNull String name_, long value_)
+	{
+		name(name_);
+		value(value_);
+	}
+
+	/**
+	 * write named real field of object. Fields with infinite or NaN value are skipped.
+	 *
+	 * @param name_  name of the field.
+	 * @param value_ value of the field.
+	 */
+	public void field(@NotNull String name_, double value_)
+	{
+		if (Double.isFinite(value_) == true)
+		{
+			name(name_);
+			value(value_);
+		}
+	}
+
+	/**
+	 * write named field of object. Fields with {@code null}, infinite or NaN value are skipped, as
+	 * by {@link org.json.JSONObject#putOpt}.
+	 *
+	 * @param name_  name of the field.
+	 * @param value_ value of the field, see {@link JsonWriter#value(Object)}.
+	 */
+	public void field(@NotNull String name_, @Nullable Object value_)
+	{
+		if (_isValid(value_) == true)
+		{
+			name(name_);
+			value(value_);
+		}
+	}
+
+	public void value(long value_)
+	{
+		_separate();
+		_writeLong(value_);
+		mSeparate = true;
+	}
+
+	/**
+	 * write real value. Infinite and NaN values are written as {@code null}.
+	 *
+	 * @param value_ value to write.
+	 */
+	public void value(double value_)
+	{
+		_separate();
+
+		// if value cannot be written as JSON number
+		if (Double.isFinite(value_) == false)
+		{
+			_write(NULL);
+		}
+		// if value has no fraction and is written without exponent
+		else if ((value_ == (long)value_) && (Math.abs(value_) < MAX_INTEGRAL_DOUBLE) &&
+			(Double.doubleToRawLongBits(value_) != BITS_NEGATIVE_ZERO))
+		{
+			_writeLong((long)value_);
+		}
+		else
+		{
+			_writeNumber(Double.toString(value_));
+		}
+
+		mSeparate = true;
+	}
+
+	/**
+	 * write real value of single precision, in its shortest text. Infinite and NaN values are
+	 * written as {@code null}.
+	 *
+	 * @param value_ value to write.
+	 */
+	public void value(float value_)
+	{
+		_separate();
+
+		// if value cannot be written as JSON number
+		if (Float.isFinite(value_) == false)
+		{
+			_write(NULL);
+		}
+		else
+		{
+			_writeNumber(Float.toString(value_));
+		}
+
+		mSeparate = true;
+	}
+
+	public void value(boolean value_)
+	{
+		_separate();
+		_write(value_ ? TRUE : FALSE);
+		mSeparate = true;
+	}
+
+	public void value(@Nullable String value_)
+	{
+		_separate();
+
+		// if value is null
+		if (value_ == null)
+		{
+			_write(NULL);
+		}
+		else
+		{
+			_writeString(value_);
+		}
+
+		mSeparate = true;
+	}
+
+	/**
+	 * write value of any type. Entities are written by {@link REntity#writeJson}, maps as objects,
+	 * collections and arrays as arrays, enumerators by their names, and other objects as strings.
+	 * Entries of maps and elements of collections and arrays are skipped if they are infinite or
+	 * NaN reals, and entries of maps are skipped if they are {@code null} too.
+	 *
+	 * @param value_ value to write.
+	 */
+	public void value(@Nullable Object value_)
+	{
+		// if value is string
+		if ((value_ == null) || (value_ instanceof String))
+		{
+			value((String)value_);
+		}
+		// if value is integer
+		else if ((value_ instanceof Long) || (value_ instanceof Integer) ||
+			(value_ instanceof Short) || (value_ instanceof Byte))
+		{
+			value(((Number)value_).longValue());
+		}
+		// if value is real
+		else if (value_ instanceof Double)
+		{
+			value((double)value_);
+		}
+		else if (value_ instanceof Float)
+		{
+			value((float)value_);
+		}
+		// if value is another number, e.g. BigDecimal
+		else if (value_ instanceof Number)
+		{
+			_separate();
+
+			// if number is not valid JSON number, e.g. fraction
+			String number = value_.toString();
+			number = number.substring(0, _getNumberLength(number));
+			if (PATTERN_NUMBER.matcher(number).matches() == true)
+			{
+				_writeNumber(number);
+			}
+			else
+			{
+				_writeString(number);
+			}
+
+			mSeparate = true;
+		}
+		// if value is boolean
+		else if (value_ instanceof Boolean)
+		{
+			value((boolean)value_);
+		}
+		// if value is entity
+		else if (value_ instanceof REntity)
+		{
+			((REntity)value_).writeJson(this);
+		}
+		// if value is map
+		else if (value_ instanceof Map)
+		{
+			beginObject();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)value_).entrySet())
+			{
+				if (entry.getKey() != null)
+				{
+					field(entry.getKey().toString(), entry.getValue());
+				}
+			}
+			endObject();
+		}
+		// if value is list
+		else if (value_ instanceof Collection)
+		{
+			beginArray();
+			for (Object object : (Collection<?>)value_)
+			{
+				_element(object);
+			}
+			endArray();
+		}
+		// if value is array of objects
+		else if (value_ instanceof Object[])
+		{
+			beginArray();
+			for (Object object : (Object[])value_)
+			{
+				_element(object);
+			}
+			endArray();
+		}
+		// if value is array of primitives
+		else if (value_.getClass().isArray() == true)
+		{
+			beginArray();
+			int n = Array.getLength(value_);
+			for (int i = 0; i < n; ++i)
+			{
+				_element(Array.get(value_, i));
+			}
+			endArray();
+		}
+		// if value is enumerator
+		else if (value_ instanceof Enum)
+		{
+			value(((Enum<?>)value_).name());
+		}
+		else
+		{
+			value(value_.toString());
+		}
+	}
+
+	/**
+	 * @return number of bytes in the buffer, not written to stream yet.
+	 */
+	@Contract(pure = true)
+	public int length()
+	{
+		return mLength;
+	}
+
+	/**
+	 * get the buffer without copying it. The buffer is valid until the writer is written, cleared
+	 * or recycled.
+	 *
+	 * @return buffer holding the written UTF-8 bytes from 0 to {@link JsonWriter#length}.
+	 */
+	@Contract(pure = true)
+	public byte @NotNull [] getContent()
+	{
+		return mBuffer;
+	}
+
+	/**
+	 * discard the written JSON, keeping the buffer for next one.
+	 */
+	public void clear()
+	{
+		mLength = 0;
+		mError = null;
+		mSeparate = false;
+	}
+
+	/**
+	 * write the buffer to stream.
+	 *
+	 * @param stream_ stream to write to.
+	 *
+	 * @throws Exception if the stream failed.
+	 */
+	public void writeTo(@NotNull OutputStream stream_) throws Exception
+	{
+		stream_.write(mBuffer, 0, mLength);
+	}
+
+	/**
+	 * write the buffer to the stream of the writer, and flush the stream.
+	 *
+	 * @throws Exception if the stream failed, now or while the buffer was written before.
+	 */
+	public void flush() throws Exception
+	{
+		if (mStream != null)
+		{
+			_flushBuffer();
+			if (mError == null)
+			{
+				try
+				{
+					mStream.flush();
+				}
+				catch (Exception e)
+				{
+					mError = e;
+				}
+			}
+		}
+
+		if (mError != null)
+		{
+			throw mError;
+		}
+	}
+
+	/**
+	 * @return JSON in the buffer.
+	 */
+	@Override
+	@NotNull
+	@Contract(pure = true)
+	public String toString()
+	{
+		return new String(mBuffer, 0, mLength, StandardCharsets.UTF_8);
+	}
+
+	@Contract(value = "null -> false", pure = true)
+	private static boolean _isValid(@Nullable Object value_)
+	{
+		// if value is infinite or NaN real
+		if (value_ instanceof Double)
+		{
+			return Double.isFinite((double)value_);
+		}
+		if (value_ instanceof Float)
+		{
+			return Float.isFinite((float)value_);
+		}
+
+		return value_ != null;
+	}
+
+	private void _element(@Nullable Object value_)
+	{
+		if ((value_ == null) || (_isValid(value_) == true))
+		{
+			value(value_);
+		}
+	}
+
+	private void _separate()
+	{
+		if (mSeparate == true)
+		{
+			_write((byte)',');
+		}
+	}
+
+	private void _write(byte b_)
+	{
+		if (mLength == mBuffer.length)
+		{
+			_makeRoom(1);
+		}
+
+		mBuffer[mLength++] = b_;
+	}
+
+	private void _write(byte @NotNull [] bytes_)
+	{
+		if (mLength + bytes_.length > mBuffer.length)
+		{
+			_makeRoom(bytes_.length);
+		}
+
+		System.arraycopy(bytes_, 0, mBuffer, mLength, bytes_.length);
+		mLength += bytes_.length;
+	}
+
+	private void _writeLong(long value_)
+	{
+		if (mLength + MAX_SIZE_LONG > mBuffer.length)
+		{
+			_makeRoom(MAX_SIZE_LONG);
+		}
+
+		// digits are computed from negative value, so minimal long is written too
+		long value = value_;
+		if (value < 0)
+		{
+			mBuffer[mLength++] = '-';
+		}
+		else
+		{
+			value = -value;
+		}
+
+		// count digits
+		int digits = 1;
+		for (long v = value; v <= -10; v /= 10)
+		{
+			++digits;
+		}
+
+		// write digits from the last one
+		mLength += digits;
+		int ix = mLength;
+		do
+		{
+			mBuffer[--ix] = (byte)('0' - (value % 10));
+			value /= 10;
+		}
+		while (value != 0);
+	}
+
+	/**
+	 * get length of number text without trailing zeros of decimal fraction, as stripped by
+	 * {@link org.json.JSONObject#numberToString}.
+	 *
+	 * @param number_ text of number.
+	 *
+	 * @return length of the text to write.
+	 */
+	@Contract(pure = true)
+	private static int _getNumberLength(@NotNull String number_)
+	{
+		int n = number_.length();
+
+		// if number is written in decimal notation
+		if ((number_.indexOf('.') > 0) && (number_.indexOf('e') < 0) && (number_.indexOf('E') < 0))
+		{
+			while (number_.charAt(n - 1) == '0')
+			{
+				--n;
+			}
+			if (number_.charAt(n - 1) == '.')
+			{
+				--n;
+			}
+		}
+
+		return n;
+	}
+
+	private void _writeNumber(@NotNull String number_)
+	{
+		int n = _getNumberLength(number_);
+		if (mLength + n > mBuffer.length)
+		{
+			_makeRoom(n);
+		}
+
+		for (int i = 0; i < n; ++i)
+		{
+			mBuffer[mLength++] = (byte)number_.charAt(i);
+		}
+	}
+
+	private void _writeString(@NotNull String string_)
+	{
+		_write((byte)'"');
+
+		int n = string_.length();
+		for (int i = 0; i < n; ++i)
+		{
+			if (mLength + MAX_SIZE_CHAR > mBuffer.length)
+			{
+				_makeRoom(MAX_SIZE_CHAR);
+			}
+
+			char c = string_.charAt(i);
+
+			// if character is ASCII
+			if (c < 0x80)
+			{
+				// if character is quote, backslash or slash closing tag, as in "</script>"
+				if ((c == '"') || (c == '\\') || ((c == '/') && (i > 0) &&
+					(string_.charAt(i - 1) == '<')))
+				{
+					mBuffer[mLength++] = '\\';
+					mBuffer[mLength++] = (byte)c;
+				}
+				else if (c >= 0x20)
+				{
+					mBuffer[mLength++] = (byte)c;
+				}
+				else
+				{
+					_writeEscaped(c);
+				}
+			}
+			// if character is escaped by org.json
+			else if (((c >= MIN_ESCAPED_C1) && (c <= MAX_ESCAPED_C1)) ||
+				((c >= MIN_ESCAPED_PUNCTUATION) && (c <= MAX_ESCAPED_PUNCTUATION)))
+			{
+				_writeEscaped(c);
+			}
+			// if character is encoded by 2 bytes
+			else if (c < 0x800)
+			{
+				mBuffer[mLength++] = (byte)(0xc0 | (c >> 6));
+				mBuffer[mLength++] = (byte)(0x80 | (c & 0x3f));
+			}
+			// if character is not surrogate
+			else if (Character.isSurrogate(c) == false)
+			{
+				mBuffer[mLength++] = (byte)(0xe0 | (c >> 12));
+				mBuffer[mLength++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+				mBuffer[mLength++] = (byte)(0x80 | (c & 0x3f));
+			}
+			// if character is surrogate pair
+			else if ((Character.isHighSurrogate(c) == true) && (i + 1 < n) &&
+				(Character.isLowSurrogate(string_.charAt(i + 1)) == true))
+			{
+				int code = Character.toCodePoint(c, string_.charAt(++i));
+				mBuffer[mLength++] = (byte)(0xf0 | (code >> 18));
+				mBuffer[mLength++] = (byte)(0x80 | ((code >> 12) & 0x3f));
+				mBuffer[mLength++] = (byte)(0x80 | ((code >> 6) & 0x3f));
+				mBuffer[mLength++] = (byte)(0x80 | (code & 0x3f));
+			}
+			// unpaired surrogate is replaced, like by String.getBytes
+			else
+			{
+				mBuffer[mLength++] = '?';
+			}
+		}
+
+		_write((byte)'"');
+	}
+
+	private void _writeEscaped(char c_)
+	{
+		mBuffer[mLength++] = '\\';
+		switch (c_)
+		{
+			case '\b' -> mBuffer[mLength++] = 'b';
+			case '\t' -> mBuffer[mLength++] = 't';
+			case '\n' -> mBuffer[mLength++] = 'n';
+			case '\f' -> mBuffer[mLength++] = 'f';
+			case '\r' -> mBuffer[mLength++] = 'r';
+			default ->
+			{
+				mBuffer[mLength++] = 'u';
+				mBuffer[mLength++] = HEX_DIGITS[c_ >> 12];
+				mBuffer[mLength++] = HEX_DIGITS[(c_ >> 8) & 0xf];
+				mBuffer[mLength++] = HEX_DIGITS[(c_ >> 4) & 0xf];
+				mBuffer[mLength++] = HEX_DIGITS[c_ & 0xf];
+			}
+		}
+	}
+
+	private void _makeRoom(int size_)
+	{
+		// if buffer is written to stream
+		if (mStream != null)
+		{
+			_flushBuffer();
+			if (size_ <= mBuffer.length)
+			{
+				return;
+			}
+		}
+
+		mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mLength + size_));
+	}
+
+	private void _flushBuffer()
+	{
+		assert mStream != null;
+
+		// if stream did not fail
+		if (mError == null)
+		{
+			try
+			{
+				mStream.write(mBuffer, 0, mLength);
+			}
+			catch (Exception e)
+			{
+				mError = e;
+			}
+		}
+
+		mLength = 0;
+	}
+}
@@ -0,0 +1,213 @@
+package borg.framework.serializers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import borg.framework.auxiliaries.Logger;
+import borg.framework.services.TimeManager;
+
+public final class PersistenceManager
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** default maximal delay between state save and its storing **/
+	public static final long DEFAULT_FLUSH_INTERVAL = TimeManager.SECOND;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** name of storing thread **/
+	private static final String NAME_THREAD = "persistence";
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** states scheduled to be stored, mapped by their tags **/
+	private static final Map<String, Serialized> sPending = new LinkedHashMap<>();
+
+	/** maximal delay between state save and its storing **/
+	private static long sInterval = DEFAULT_FLUSH_INTERVAL;
+
+	/** executor stores the states **/
+	private static ScheduledExecutorService sExecutor = null;
+
+	/** storing thread **/
+	private static Thread sThread = null;
+
+	/** is flush scheduled **/
+	private static boolean sScheduled = false;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Contract(pure = true)
+	private PersistenceManager()
+	{
+		// private constructor to prevent instantiation
+	}
+
+	/**
+	 * set maximal delay between state save and its storing. All saves done during the delay are
+	 * coalesced, so every state is stored once.
+	 *
+	 * @param interval_ interval to set in milliseconds.
+	 */
+	public static void setFlushInterval(long interval_)
+	{
+		synchronized (sPending)
+		{
+			sInterval = interval_;
+		}
+	}
+
+	/**
+	 * store all scheduled states and wait until they are stored. Blocking operation.
+	 */
+	public static void flush()
+	{
+		ScheduledExecutorService executor;
+		synchronized (sPending)
+		{
+			// if nothing to store
+			if (sExecutor == null)
+			{
+				return;
+			}
+			executor = sExecutor;
+		}
+
+		// if called from storing thread
+		if (Thread.currentThread() == sThread)
+		{
+			_flush();
+			return;
+		}
+
+		// store on storing thread, after the states are being stored
+		try
+		{
+			executor.submit(PersistenceManager::_flush).get();
+		}
+		catch (Exception e)
+		{
+			Logger.log(e);
+		}
+	}
+
+	/**
+	 * store all scheduled states and stop storing thread. States scheduled after the shutdown will
+	 * start it again.
+	 */
+	public static void shutdown()
+	{
+		flush();
+
+		ScheduledExecutorService executor;
+		synchronized (sPending)
+		{
+			executor = sExecutor;
+			sExecutor = null;
+			sThread = null;
+			sScheduled = false;
+		}
+
+		// if storing thread is running
+		if (executor != null)
+		{
+			executor.shutdown();
+
+			// store states scheduled during the shutdown
+			_flush();
+		}
+	}
+
+	/**
+	 * schedule state to be stored.
+	 *
+	 * @param object_ state to store.
+	 */
+	static void schedule(@NotNull Serialized object_)
+	{
+		synchronized (sPending)
+		{
+			sPending.put(object_.tag, object_);
+
+			// if flush is not scheduled yet
+			if (sScheduled == false)
+			{
+				sScheduled = true;
+				_getExecutor().schedule(PersistenceManager::_flush, sInterval, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	@NotNull
+	private static ScheduledExecutorService _getExecutor()
+	{
+		// if executor is not created yet
+		if (sExecutor == null)
+		{
+			String session = Logger.getSession();
+			sExecutor = Executors.newSingleThreadScheduledExecutor(runnable_ ->
+			{
+				Thread thread = new Thread(() ->
+				{
+					Logger.startSession(session);
+					runnable_.run();
+				}, NAME_THREAD);
+				thread.setDaemon(true);
+				sThread = thread;
+
+				return thread;
+			});
+		}
+
+		return sExecutor;
+	}
+
+	private static void _flush()
+	{
+		// take scheduled states
+		List<Serialized> objects;
+		synchronized (sPending)
+		{
+			objects = new ArrayList<>(sPending.values());
+			sPending.clear();
+			sScheduled = false;
+		}
+
+		// store the states
+		for (Serialized object : objects)
+		{
+			try
+			{
+				if (object.persist() == false)
+				{
+					Logger.snapshot(Level.WARNING, "state was not stored", "tag", object.tag);
+				}
+			}
+			catch (Throwable e)
+			{
+				Logger.log(e);
+			}
+		}
+	}
+}
@@ -5,9 +5,8 @@ import org.jetbrains.annotations.MustBeInvokedByOverriders;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.OutputStream;
 import java.io.Serial;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -16,6 +15,7 @@ import java.util.Map;
 
 import borg.framework.Constants;
 import borg.framework.auxiliaries.BinaryParser;
+import borg.framework.auxiliaries.ClassCache;
 import borg.framework.auxiliaries.Logger;
 import borg.framework.collections.IntArray;
 import borg.framework.services.ArraysManager;
@@ -36,6 +36,17 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 	@Serial
 	private static final long serialVersionUID = Constants.VERSION_FRAMEWORK;
 
+	/** whether entity classes write all their fields by {@link REntity#writeFields} **/
+	private static final ClassValue<Boolean> STREAMED = new ClassValue<>()
+	{
+		@Override
+		@NotNull
+		protected Boolean computeValue(@NotNull Class<?> type_)
+		{
+			return _isStreamed(type_);
+		}
+	};
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Definitions
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -74,11 +85,72 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 		return map;
 	}
 
+	/**
+	 * write the entity as JSON object. Entities whose classes override {@link REntity#buildMap} and
+	 * not {@link REntity#writeFields} are written from their maps.
+	 *
+	 * @param writer_ writer to write with.
+	 */
+	public final void writeJson(@NotNull JsonWriter writer_)
+	{
+		writer_.beginObject();
+
+		// if all fields of the entity are written by it
+		if (STREAMED.get(getClass()) == true)
+		{
+			writeFields(writer_);
+		}
+		else
+		{
+			for (Map.Entry<String, Object> entry : toMap().entrySet())
+			{
+				writer_.field(entry.getKey(), entry.getValue());
+			}
+		}
+
+		writer_.endObject();
+	}
+
+	/**
+	 * write the entity as UTF-8 JSON to stream, without accumulating the whole JSON.
+	 *
+	 * @param stream_ stream to write to.
+	 *
+	 * @throws Exception if the stream failed.
+	 */
+	public final void writeJson(@NotNull OutputStream stream_) throws Exception
+	{
+		JsonWriter writer = JsonWriter.obtain(stream_);
+		try
+		{
+			writeJson(writer);
+			writer.flush();
+		}
+		finally
+		{
+			writer.recycle();
+		}
+	}
+
+	/**
+	 * @return the entity as JSON written by {@link JsonWriter}. Keys are in order of the entity
+	 * map, so the text may differ from the one of {@link EntityParser#buildJson}.
+	 */
 	@Override
 	@NotNull
 	public final String toString()
 	{
-		return EntityParser.buildJson(toMap()).toString();
+		JsonWriter writer = JsonWriter.obtain(null);
+		try
+		{
+			writeJson(writer);
+
+			return writer.toString();
+		}
+		finally
+		{
+			writer.recycle();
+		}
 	}
 
 	/**
@@ -108,9 +180,7 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 				if (type != null)
 				{
 					// get entity class
-					Method method = types_.getMethod("values");
-					RTyped<T>[] values = (RTyped<T>[])method.invoke(null);
-					assert values != null;
+					E[] values = ClassCache.getEnumValues(types_);
 					Class<T> entityClass = (Class<T>)values[((Number)type).intValue()].entityClass();
 
 					return buildEntity(map_, entityClass, default_);
@@ -179,10 +249,8 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 		{
 			try
 			{
-				// get entity constructor
-				Constructor<T> constructor = type_.getConstructor(HashMap.class);
-				constructor.setAccessible(true);
-				return constructor.newInstance(map_);
+				// create entity by its constructor
+				return ClassCache.getFactory(type_, HashMap.class).create(map_);
 			}
 			catch (Exception e)
 			{
@@ -453,12 +521,8 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 			{
 				try
 				{
-					// get constructor
-					Constructor<T> constructor = class_.getConstructor(HashMap.class);
-					constructor.setAccessible(true);
-
 					// return instance
-					return constructor.newInstance(map);
+					return ClassCache.getFactory(class_, HashMap.class).create(map);
 				}
 				catch (Exception e)
 				{
@@ -523,14 +587,14 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 				try
 				{
 					// get constructor
-					Constructor<T> constructor = class_.getConstructor(HashMap.class);
-					constructor.setAccessible(true);
+					ClassCache.Factory<? super HashMap<String, Object>, T> factory =
+						ClassCache.getFactory(class_, HashMap.class);
 
 					// parse all maps
 					for (HashMap<String, Object> map : maps)
 					{
 						// create an object
-						objects.add(constructor.newInstance(map));
+						objects.add(factory.create(map));
 					}
 				}
 				catch (Exception e)
@@ -554,11 +618,8 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 		try
 		{
 			// get values
-			Method method = default_.getClass().getMethod("values");
-			//noinspection unchecked
-			T[] values = (T[])method.invoke(null);
+			T[] values = ClassCache.getEnumValues(default_.getDeclaringClass());
 
-			assert values != null;
 			return values[(int)readField(map_, key_, default_.ordinal())];
 		}
 		catch (Exception e)
@@ -590,4 +651,45 @@ public abstract class REntity implements BinaryParser.BinarySerializable
 	{
 		// nothing to do here
 	}
+
+	/**
+	 * write fields of the entity, as {@link REntity#buildMap} maps them. Class overriding
+	 * {@link REntity#buildMap} must override this method too, otherwise its entities are written
+	 * from their maps.
+	 *
+	 * @param writer_ writer to write the fields with, inside the entity object.
+	 */
+	@MustBeInvokedByOverriders
+	protected void writeFields(@SuppressWarnings("unused") @NotNull JsonWriter writer_)
+	{
+		// nothing to do here
+	}
+
+	@Contract(pure = true)
+	private static boolean _isStreamed(@NotNull Class<?> type_)
+	{
+		for (Class<?> type = type_; type != REntity.class; type = type.getSuperclass())
+		{
+			try
+			{
+				type.getDeclaredMethod("buildMap", HashMap.class);
+			}
+			catch (NoSuchMethodException e)
+			{
+				// class maps no fields
+				continue;
+			}
+
+			try
+			{
+				type.getDeclaredMethod("writeFields", JsonWriter.class);
+			}
+			catch (NoSuchMethodException e)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
 }
@@ -0,0 +1,559 @@
+package borg.framework.serializers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import borg.framework.auxiliaries.BinaryParser;
+
+public final class SchemaCodec
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** magic number of encoded object ("BS" in little endian) **/
+	private static final int MAGIC = 0x5342;
+
+	/** format version **/
+	private static final int VERSION = 1;
+
+	/** size of encoded object header: magic and version **/
+	private static final int SIZE_HEADER = BinaryParser.SIZE_INT16 + BinaryParser.SIZE_INT8;
+
+	/** decoded value of field that must keep its value **/
+	private static final Object SKIPPED = new Object();
+
+	/** schemas of encoded classes **/
+	private static final ClassValue<Schema> SCHEMAS = new ClassValue<>()
+	{
+		@Override
+		@NotNull
+		protected Schema computeValue(@NotNull Class<?> type_)
+		{
+			return new Schema(type_);
+		}
+	};
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** type of encoded field. Ordinals are stored, so new types must be added at the end **/
+	private enum Type
+	{
+		BOOLEAN,
+		BYTE,
+		SHORT,
+		CHAR,
+		INT,
+		LONG,
+		FLOAT,
+		DOUBLE,
+		STRING,
+		BYTES,
+		INTS,
+		LONGS,
+		DOUBLES,
+		ENUM,
+		OBJECT;
+
+		/** all types by their ordinals **/
+		static final Type[] VALUES = values();
+
+		@NotNull
+		@Contract(pure = true)
+		static Type of(@NotNull Class<?> class_)
+		{
+			if (class_ == boolean.class)
+			{
+				return BOOLEAN;
+			}
+			if (class_ == byte.class)
+			{
+				return BYTE;
+			}
+			if (class_ == short.class)
+			{
+				return SHORT;
+			}
+			if (class_ == char.class)
+			{
+				return CHAR;
+			}
+			if (class_ == int.class)
+			{
+				return INT;
+			}
+			if (class_ == long.class)
+			{
+				return LONG;
+			}
+			if (class_ == float.class)
+			{
+				return FLOAT;
+			}
+			if (class_ == double.class)
+			{
+				return DOUBLE;
+			}
+			if (class_ == String.class)
+			{
+				return STRING;
+			}
+			if (class_ == byte[].class)
+			{
+				return BYTES;
+			}
+			if (class_ == int[].class)
+			{
+				return INTS;
+			}
+			if (class_ == long[].class)
+			{
+				return LONGS;
+			}
+			if (class_ == double[].class)
+			{
+				return DOUBLES;
+			}
+			if (class_.isEnum() == true)
+			{
+				return ENUM;
+			}
+
+			return OBJECT;
+		}
+
+		@Contract(pure = true)
+		boolean isPrimitive()
+		{
+			return ordinal() <= DOUBLE.ordinal();
+		}
+	}
+
+	private static final class Schema
+	{
+		/** encoded fields **/
+		final SerializedFields fields;
+
+		/** types of encoded fields **/
+		final Type[] types;
+
+		/** encoded schema, written before the fields values **/
+		final byte[] header;
+
+		Schema(@NotNull Class<?> type_)
+		{
+			fields = SerializedFields.of(type_);
+			types = new Type[fields.accessors.length];
+			for (int i = 0; i < types.length; ++i)
+			{
+				types[i] = Type.of(fields.accessors[i].field.getType());
+			}
+
+			// build header
+			BinaryParser.Writer writer = new BinaryParser.Writer();
+			BinaryParser.writeInteger(MAGIC, BinaryParser.SIZE_INT16, writer);
+			BinaryParser.writeInteger(VERSION, BinaryParser.SIZE_INT8, writer);
+			BinaryParser.writeInteger(types.length, BinaryParser.SIZE_INT16, writer);
+			for (int i = 0; i < types.length; ++i)
+			{
+				BinaryParser.writeIntegers(fields.accessors[i].name.getBytes(StandardCharsets.UTF_8),
+					writer);
+				BinaryParser.writeEnum(types[i], writer);
+			}
+			header = writer.extractContent();
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	@Contract(pure = true)
+	private SchemaCodec()
+	{
+		// private constructor to prevent instantiation
+	}
+
+	/**
+	 * check whether the data was encoded by {@link SchemaCodec#write}.
+	 *
+	 * @param data_ data to check.
+	 *
+	 * @return {@code true} if the data has encoded object header, {@code false} otherwise.
+	 */
+	@Contract(pure = true)
+	public static boolean isEncoded(byte @NotNull [] data_)
+	{
+		return (data_.length >= SIZE_HEADER) &&
+			(BinaryParser.readInteger(data_, BinaryParser.SIZE_INT16, 0) == MAGIC) &&
+			(BinaryParser.readInteger(data_, BinaryParser.SIZE_INT8, BinaryParser.SIZE_INT16) ==
+				VERSION);
+	}
+
+	/**
+	 * encode all non-transient fields of the object. The encoding holds the fields names and types,
+	 * so it can be decoded after fields were added or removed. Fields of types that have no compact
+	 * encoding are encoded with java serialization.
+	 *
+	 * @param object_ object to encode.
+	 *
+	 * @return encoded object.
+	 *
+	 * @throws Exception if the object cannot be encoded.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] write(@NotNull Object object_) throws Exception
+	{
+		Schema schema = SCHEMAS.get(object_.getClass());
+		BinaryParser.Writer writer = new BinaryParser.Writer();
+		writer.push(schema.header);
+
+		// write fields
+		try
+		{
+			SerializedFields.Accessor[] accessors = schema.fields.accessors;
+			for (int i = 0; i < accessors.length; ++i)
+			{
+				_write(accessors[i], schema.types[i], object_, writer);
+			}
+		}
+		catch (Exception | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable e)
+		{
+			throw new Exception(e);
+		}
+
+		return writer.extractContent();
+	}
+
+	/**
+	 * decode object encoded by {@link SchemaCodec#write} into given object. Encoded fields that the
+	 * object has no more, or that changed their types, are ignored, as are enumerators whose
+	 * constants were removed. Fields that were not encoded keep their values. All fields are
+	 * decoded before any of them is set, so the object is left unchanged if the data is corrupted.
+	 *
+	 * @param data_   encoded object.
+	 * @param object_ object to decode into.
+	 *
+	 * @throws Exception if the data is corrupted.
+	 */
+	public static void read(byte @NotNull [] data_, @NotNull Object object_) throws Exception
+	{
+		// if data is not encoded object
+		if (isEncoded(data_) == false)
+		{
+			throw new Exception("unknown format");
+		}
+
+		Schema schema = SCHEMAS.get(object_.getClass());
+		BinaryParser.Reader reader = new BinaryParser.Reader(data_);
+		try
+		{
+			SerializedFields.Accessor[] accessors = schema.fields.accessors;
+			Type[] types = schema.types;
+
+			// if data was encoded with same schema
+			if ((data_.length >= schema.header.length) &&
+				(Arrays.equals(data_, 0, schema.header.length, schema.header, 0, schema.header.length)))
+			{
+				BinaryParser.readBytes(reader, schema.header.length);
+			}
+			else
+			{
+				// read encoded schema
+				BinaryParser.readBytes(reader, SIZE_HEADER);
+				int n = (int)BinaryParser.readInteger(reader, BinaryParser.SIZE_INT16);
+				accessors = new SerializedFields.Accessor[n];
+				types = new Type[n];
+				for (int i = 0; i < n; ++i)
+				{
+					String name = new String(BinaryParser.readBytes(reader), StandardCharsets.UTF_8);
+					types[i] = Type.VALUES[(int)BinaryParser.readInteger(reader, BinaryParser.SIZE_INT8)];
+
+					// if the field still exists with same type
+					SerializedFields.Accessor accessor = schema.fields.find(name);
+					if ((accessor != null) && (Type.of(accessor.field.getType()) == types[i]))
+					{
+						accessors[i] = accessor;
+					}
+				}
+			}
+
+			// decode all fields before the object is changed
+			Object[] values = new Object[accessors.length];
+			for (int i = 0; i < accessors.length; ++i)
+			{
+				values[i] = _read(accessors[i], types[i], reader);
+			}
+
+			// set decoded fields
+			for (int i = 0; i < accessors.length; ++i)
+			{
+				if ((accessors[i] != null) && (values[i] != SKIPPED))
+				{
+					accessors[i].setter.invoke(object_, values[i]);
+				}
+			}
+		}
+		catch (Exception | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable e)
+		{
+			throw new Exception(e);
+		}
+	}
+
+	private static void _write(@NotNull SerializedFields.Accessor accessor_,
+		@NotNull Type type_,
+		@NotNull Object object_,
+		@NotNull BinaryParser.Writer writer_) throws Throwable
+	{
+		MethodHandle getter = accessor_.getter;
+		switch (type_)
+		{
+			case BOOLEAN -> BinaryParser.writeInteger((boolean)getter.invokeExact(object_) ? 1 : 0,
+				BinaryParser.SIZE_INT8,
+				writer_);
+			case BYTE -> BinaryParser.writeInteger((byte)getter.invokeExact(object_),
+				BinaryParser.SIZE_INT8,
+				writer_);
+			case SHORT -> BinaryParser.writeInteger((short)getter.invokeExact(object_),
+				BinaryParser.SIZE_INT16,
+				writer_);
+			case CHAR -> BinaryParser.writeInteger((char)getter.invokeExact(object_),
+				BinaryParser.SIZE_INT16,
+				writer_);
+			case INT -> BinaryParser.writeInteger((int)getter.invokeExact(object_),
+				BinaryParser.SIZE_INT32,
+				writer_);
+			case LONG -> BinaryParser.writeInteger((long)getter.invokeExact(object_),
+				BinaryParser.SIZE_INT64,
+				writer_);
+			case FLOAT -> BinaryParser.writeFloat((float)getter.invokeExact(object_), writer_);
+			case DOUBLE -> BinaryParser.writeReal((double)getter.invokeExact(object_), writer_);
+			default -> _writeObject(type_, (Object)getter.invokeExact(object_), writer_);
+		}
+	}
+
+	private static void _writeObject(@NotNull Type type_,
+		@Nullable Object value_,
+		@NotNull BinaryParser.Writer writer_) throws Exception
+	{
+		// write null flag
+		BinaryParser.writeInteger(value_ != null ? 1 : 0, BinaryParser.SIZE_INT8, writer_);
+		if (value_ == null)
+		{
+			return;
+		}
+
+		switch (type_)
+		{
+			case STRING -> _writeBytes(((String)value_).getBytes(StandardCharsets.UTF_8), writer_);
+			case BYTES -> _writeBytes((byte[])value_, writer_);
+			case INTS ->
+			{
+				int[] array = (int[])value_;
+				BinaryParser.writeInteger(array.length, BinaryParser.SIZE_INT32, writer_);
+				for (int element : array)
+				{
+					BinaryParser.writeInteger(element, BinaryParser.SIZE_INT32, writer_);
+				}
+			}
+			case LONGS ->
+			{
+				long[] array = (long[])value_;
+				BinaryParser.writeInteger(array.length, BinaryParser.SIZE_INT32, writer_);
+				for (long element : array)
+				{
+					BinaryParser.writeInteger(element, BinaryParser.SIZE_INT64, writer_);
+				}
+			}
+			case DOUBLES ->
+			{
+				double[] array = (double[])value_;
+				BinaryParser.writeInteger(array.length, BinaryParser.SIZE_INT32, writer_);
+				for (double element : array)
+				{
+					BinaryParser.writeReal(element, writer_);
+				}
+			}
+			case ENUM -> _writeBytes(((Enum<?>)value_).name().getBytes(StandardCharsets.UTF_8),
+				writer_);
+			default -> _writeBytes(BinarySerialized.write((Serializable)value_), writer_);
+		}
+	}
+
+	private static void _writeBytes(byte @NotNull [] bytes_, @NotNull BinaryParser.Writer writer_)
+	{
+		BinaryParser.writeInteger(bytes_.length, BinaryParser.SIZE_INT32, writer_);
+		writer_.push(bytes_);
+	}
+
+	/**
+	 * read field value.
+	 *
+	 * @param accessor_ accessor of field to read to, {@code null} to skip the value.
+	 * @param type_     type of the encoded value.
+	 * @param reader_   reader to read with.
+	 *
+	 * @return read value, boxed if primitive, {@code null} if the value was skipped, or
+	 * {@link SchemaCodec#SKIPPED} if the field must keep its value.
+	 */
+	@Nullable
+	private static Object _read(@Nullable SerializedFields.Accessor accessor_,
+		@NotNull Type type_,
+		@NotNull BinaryParser.Reader reader_)
+	{
+		// if value should be skipped
+		if (accessor_ == null)
+		{
+			_skip(type_, reader_);
+			return null;
+		}
+
+		return switch (type_)
+		{
+			case BOOLEAN -> BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT8) != 0;
+			case BYTE -> (byte)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT8);
+			case SHORT -> (short)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT16);
+			case CHAR -> (char)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT16);
+			case INT -> (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32);
+			case LONG -> BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT64);
+			case FLOAT -> (float)BinaryParser.readFloat(reader_);
+			case DOUBLE -> BinaryParser.readReal(reader_);
+			default -> _readObject(type_, accessor_.field.getType(), reader_);
+		};
+	}
+
+	@Nullable
+	private static Object _readObject(@NotNull Type type_,
+		@NotNull Class<?> class_,
+		@NotNull BinaryParser.Reader reader_)
+	{
+		// if value is null
+		if (BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT8) == 0)
+		{
+			return null;
+		}
+
+		switch (type_)
+		{
+			case STRING:
+				return new String(_readBytes(reader_), StandardCharsets.UTF_8);
+
+			case BYTES:
+				return _readBytes(reader_);
+
+			case INTS:
+			{
+				int[] array = new int[(int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32)];
+				for (int i = 0; i < array.length; ++i)
+				{
+					array[i] = (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32);
+				}
+
+				return array;
+			}
+
+			case LONGS:
+			{
+				long[] array = new long[(int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32)];
+				for (int i = 0; i < array.length; ++i)
+				{
+					array[i] = BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT64);
+				}
+
+				return array;
+			}
+
+			case DOUBLES:
+			{
+				double[] array = new double[(int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32)];
+				for (int i = 0; i < array.length; ++i)
+				{
+					array[i] = BinaryParser.readReal(reader_);
+				}
+
+				return array;
+			}
+
+			case ENUM:
+			{
+				// constants are found by names, so they may be reordered
+				String name = new String(_readBytes(reader_), StandardCharsets.UTF_8);
+				for (Object constant : class_.getEnumConstants())
+				{
+					if (((Enum<?>)constant).name().equals(name) == true)
+					{
+						return constant;
+					}
+				}
+
+				// the constant was removed
+				return SKIPPED;
+			}
+
+			default:
+				return BinarySerialized.read(_readBytes(reader_));
+		}
+	}
+
+	private static byte @NotNull [] _readBytes(@NotNull BinaryParser.Reader reader_)
+	{
+		int length = (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32);
+		return BinaryParser.readBytes(reader_, length);
+	}
+
+	private static void _skip(@NotNull Type type_, @NotNull BinaryParser.Reader reader_)
+	{
+		int size = switch (type_)
+		{
+			case BOOLEAN, BYTE -> BinaryParser.SIZE_INT8;
+			case SHORT, CHAR -> BinaryParser.SIZE_INT16;
+			case INT -> BinaryParser.SIZE_INT32;
+			case FLOAT -> BinaryParser.SIZE_FLOAT;
+			case LONG -> BinaryParser.SIZE_INT64;
+			case DOUBLE -> BinaryParser.SIZE_DOUBLE;
+			default -> 0;
+		};
+
+		// if value is not primitive
+		if ((type_.isPrimitive() == false) &&
+			(BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT8) != 0))
+		{
+			size = switch (type_)
+			{
+				case INTS -> (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32) *
+					BinaryParser.SIZE_INT32;
+				case LONGS -> (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32) *
+					BinaryParser.SIZE_INT64;
+				case DOUBLES -> (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32) *
+					BinaryParser.SIZE_DOUBLE;
+				default -> (int)BinaryParser.readInteger(reader_, BinaryParser.SIZE_INT32);
+			};
+		}
+
+		BinaryParser.readBytes(reader_, size);
+	}
+}
@@ -4,16 +4,29 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 import borg.framework.Constants;
+import borg.framework.auxiliaries.BinaryParser;
 import borg.framework.auxiliaries.Logger;
+import borg.framework.services.CompressionManager;
 import borg.framework.services.StorageManager;
 
-public abstract class Serialized implements Serializable
+public abstract class Serialized implements Serializable, Cloneable
 {
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Public Constants
@@ -26,6 +39,24 @@ public abstract class Serialized implements Serializable
 	@Serial
 	private static final long serialVersionUID = Constants.VERSION_FRAMEWORK;
 
+	/** suffix of journal file name **/
+	private static final String SUFFIX_JOURNAL = ".journal";
+
+	/** journal size that always allowed before compaction (64 kb) **/
+	private static final int SIZE_COMPACT_MIN = 64 * 1024;
+
+	/** value of snapshot CRC when no snapshot is known **/
+	private static final long CRC_NONE = -1;
+
+	/** directory of state files while they are written, next to the state files **/
+	private static final String DIRECTORY_TEMPORARY = ".temporary";
+
+	/** prefix of state file while it is written **/
+	private static final String PREFIX_TEMPORARY = "state";
+
+	/** size of chunk the state is encrypted by, when encryptor supports streams (32 kb) **/
+	private static final int SIZE_CHUNK = 32 * 1024;
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Definitions
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -70,6 +101,79 @@ public abstract class Serialized implements Serializable
 		 */
 		@Contract(pure = true)
 		byte @Nullable [] decrypt(@NotNull Serialized object_, byte @NotNull [] data_);
+
+		/**
+		 * create stream encrypts serialized object while it written, so encrypted object is not held
+		 * in memory. The stream must produce same data as {@link Encryptor#encrypt(Serialized,
+		 * byte[])}.
+		 *
+		 * @param object_ serialized object to encrypt.
+		 * @param stream_ stream to write encrypted object to.
+		 *
+		 * @return stream to write the object to or {@code null} if streams are not supported.
+		 *
+		 * @throws Exception if the stream cannot be created.
+		 */
+		@Nullable
+		default OutputStream encrypt(@NotNull Serialized object_, @NotNull OutputStream stream_)
+			throws Exception
+		{
+			return null;
+		}
+
+		/**
+		 * create stream decrypts serialized object while it read, so encrypted object is not held in
+		 * memory. The stream must read data written by {@link Encryptor#encrypt(Serialized, byte[])}.
+		 *
+		 * @param object_ object to decrypt.
+		 * @param stream_ stream to read encrypted object from.
+		 *
+		 * @return stream to read the object from or {@code null} if streams are not supported.
+		 *
+		 * @throws Exception if the stream cannot be created.
+		 */
+		@Nullable
+		default InputStream decrypt(@NotNull Serialized object_, @NotNull InputStream stream_)
+			throws Exception
+		{
+			return null;
+		}
+	}
+
+	private static final class Capture
+	{
+		/** copy of whole state, or {@code null} if changed fields were captured **/
+		@Nullable
+		final Serialized snapshot;
+
+		/** journal record of changed fields, encoded when captured **/
+		final byte @Nullable [] record;
+
+		/** is changed fields were captured instead of whole state **/
+		final boolean journaled;
+
+		/** is the capture was stored successfully **/
+		boolean stored;
+
+		/** later capture of whole state that superseded this one, or {@code null} **/
+		@Nullable
+		Capture successor;
+
+		@Contract(pure = true)
+		Capture(@NotNull Serialized snapshot_)
+		{
+			snapshot = snapshot_;
+			record = null;
+			journaled = false;
+		}
+
+		@Contract(pure = true)
+		Capture(byte @NotNull [] record_)
+		{
+			snapshot = null;
+			record = record_;
+			journaled = true;
+		}
 	}
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -88,12 +192,46 @@ public abstract class Serialized implements Serializable
 	@Nullable
 	private final transient Serializer mSerializer;
 
+	/** codec to compress the state with, or {@code null} to store it not compressed **/
+	@Nullable
+	private transient volatile CompressionManager.Codec mCodec;
+
+	/** lock guards transactions, changed fields and captures of the state **/
+	private final transient Object mLock;
+
+	/** lock guards stored state files **/
+	private final transient Object mStoreLock;
+
+	/** captures waiting to be stored, in capture order **/
+	private final transient ArrayDeque<Capture> mCaptures;
+
+	/** is store of captured state failed, so following changes cannot be journaled **/
+	private transient boolean mStoreFailed;
+
 	/** number of open transactions **/
 	private transient int mTransactions;
 
 	/** is state should be saved after transaction **/
 	private transient boolean mIsDirty;
 
+	/** is state should be stored on background by {@link PersistenceManager} **/
+	private transient volatile boolean mWriteBehind;
+
+	/** is changed fields should be journaled instead of storing whole state **/
+	private transient volatile boolean mJournaled;
+
+	/** names of fields changed since the state was stored **/
+	private final transient Set<String> mChanges;
+
+	/** CRC of stored state file, the journal refers to **/
+	private transient volatile long mSnapshotCrc;
+
+	/** size of stored state file **/
+	private transient volatile int mSnapshotSize;
+
+	/** size of journal file **/
+	private transient volatile long mJournalSize;
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Methods
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -113,7 +251,14 @@ public abstract class Serialized implements Serializable
 		mEncryptor = encryptor_;
 		mSerializer = serliazer_;
 
+		mLock = new Object();
+		mStoreLock = new Object();
+		mCaptures = new ArrayDeque<>();
+
 		mTransactions = 0;
+
+		mChanges = new LinkedHashSet<>();
+		mSnapshotCrc = CRC_NONE;
 	}
 
 	/**
@@ -126,11 +271,66 @@ public abstract class Serialized implements Serializable
 	}
 
 	/**
-	 * open transaction.
+	 * set codec to compress the state with. Stored state is decompressed automatically when read,
+	 * so the codec may be changed between runs.
+	 *
+	 * @param codec_ codec to set, or {@code null} to store the state not compressed.
+	 */
+	protected final void setCodec(@Nullable CompressionManager.Codec codec_)
+	{
+		mCodec = codec_;
+	}
+
+	/**
+	 * set whether changed fields should be journaled. When journaled, saving the state appends only
+	 * the fields marked by {@link Serialized#markChanged} to the journal, and the journal is compacted
+	 * to the whole state when it grows larger than the state. Values of journaled fields must be
+	 * serializable.
+	 *
+	 * @param journaled_ {@code true} to journal changed fields, {@code false} to always store whole
+	 *                   state.
+	 */
+	protected final void setJournaled(boolean journaled_)
+	{
+		mJournaled = journaled_;
+	}
+
+	/**
+	 * set whether the state should be stored on background. When set, saving the state only
+	 * schedules it, and {@link PersistenceManager} stores it later on its own thread, once for all
+	 * saves were done in the meantime.
+	 *
+	 * @param writeBehind_ {@code true} to store the state on background, {@code false} to store it
+	 *                     on the saving thread.
+	 */
+	protected final void setWriteBehind(boolean writeBehind_)
+	{
+		mWriteBehind = writeBehind_;
+	}
+
+	/**
+	 * mark field as changed, so it will be journaled on next save.
+	 *
+	 * @param field_ name of the changed field.
+	 */
+	protected final void markChanged(@NotNull String field_)
+	{
+		synchronized (mLock)
+		{
+			mChanges.add(field_);
+		}
+	}
+
+	/**
+	 * open transaction. Transactions may be opened and closed from different threads. The state is
+	 * not copied while a transaction is open, so fields should be changed only inside transactions.
 	 */
 	public final void openTransaction()
 	{
-		++mTransactions;
+		synchronized (mLock)
+		{
+			++mTransactions;
+		}
 	}
 
 	/**
@@ -138,17 +338,18 @@ public abstract class Serialized implements Serializable
 	 */
 	public final void closeTransaction()
 	{
-		--mTransactions;
-
-		// if last transaction closed
-		if (mTransactions == 0)
+		synchronized (mLock)
 		{
-			// if state should be saved
-			if (mIsDirty == true)
+			--mTransactions;
+
+			// if not last transaction closed or state should not be saved
+			if ((mTransactions != 0) || (mIsDirty == false))
 			{
-				saveState();
+				return;
 			}
 		}
+
+		saveState();
 	}
 
 	/**
@@ -156,95 +357,232 @@ public abstract class Serialized implements Serializable
 	 */
 	public final int getTransactions()
 	{
-		return mTransactions;
+		synchronized (mLock)
+		{
+			return mTransactions;
+		}
 	}
 
 	/**
-	 * store the state.
+	 * store the state. If the state is stored on background, then the state is only scheduled to be
+	 * stored.
 	 *
-	 * @return {@code true} if the state was saved successfully, {@code false} otherwise.
+	 * @return {@code true} if the state was saved or scheduled successfully, {@code false} otherwise.
 	 */
-	@SuppressWarnings("null") // compiler issues
 	public boolean saveState()
 	{
-		// if transaction is closed
-		if (mTransactions == 0)
+		synchronized (mLock)
 		{
+			// if transaction is open, then the state will be saved when it closed
+			if (mTransactions > 0)
+			{
+				mIsDirty = true;
+				return true;
+			}
+
 			mIsDirty = false;
+		}
+
+		// if state should be stored on background
+		if (mWriteBehind == true)
+		{
+			PersistenceManager.schedule(this);
+			return true;
+		}
+
+		return persist();
+	}
+
+	/**
+	 * read previous instance state.
+	 *
+	 * @return true if state exists, false otherwise.
+	 */
+	public boolean readState()
+	{
+		synchronized (mStoreLock)
+		{
+			synchronized (mLock)
+			{
+				return _read();
+			}
+		}
+	}
+
+	/**
+	 * remove state of instance
+	 */
+	public final void removeState()
+	{
+		synchronized (mStoreLock)
+		{
+			// drop captures were not stored yet
+			synchronized (mLock)
+			{
+				mCaptures.clear();
+			}
+
+			try
+			{
+				StorageManager.delete(StorageManager.getFile(tag));
+				mSnapshotCrc = CRC_NONE;
+				_removeJournal();
+			}
+			catch (Exception e)
+			{
+				Logger.log(e);
+			}
+		}
+	}
+
+	@Contract(pure = true)
+	protected abstract byte @Nullable [] serialize();
+
+	@Contract(pure = true)
+	@Nullable
+	protected abstract Serialized deserialize(byte @NotNull [] data_);
+
+	/**
+	 * copy the state to serialize. The copy is made while transactions are excluded, and then
+	 * serialized without blocking them. The default copy is shallow, so class whose fields refer to
+	 * mutable objects, e.g. collections, must copy them here, or replace them instead of mutating.
+	 *
+	 * @return copy of the state.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	protected Serialized snapshot()
+	{
+		try
+		{
+			return (Serialized)clone();
+		}
+		catch (CloneNotSupportedException e)
+		{
+			throw new Error(e);
+		}
+	}
 
-			// if serializer is defined
-			if (mSerializer != null)
+	/**
+	 * store the state now. Changed fields are encoded, or the whole state is copied, while
+	 * transactions are excluded. The copy is then serialized, compressed, encrypted and written
+	 * without blocking them. Captures are stored in
+	 * capture order, so older state never overwrites newer one.
+	 *
+	 * @return {@code true} if the state was saved successfully, {@code false} otherwise.
+	 */
+	final boolean persist()
+	{
+		// capture the state
+		Capture capture;
+		synchronized (mLock)
+		{
+			// if transaction was opened meanwhile, then the state will be saved when it closed
+			if (mTransactions > 0)
 			{
-				mSerializer.prepare(this);
+				mIsDirty = true;
+				return true;
 			}
 
-			// serialize state
-			byte[] data = serialize();
+			capture = _capture();
+
+			// if whole state was captured, then it supersedes captures were not stored yet
+			if (capture.journaled == false)
+			{
+				for (Capture previous : mCaptures)
+				{
+					previous.successor = capture;
+				}
+				mCaptures.clear();
+			}
+			mCaptures.add(capture);
+		}
 
-			// if serialization succeeded
-			if (data != null)
+		// store captures, including ones were captured by other threads
+		synchronized (mStoreLock)
+		{
+			while (true)
 			{
-				// if encryptor is defined
-				if (mEncryptor != null)
+				Capture next;
+				boolean failed;
+				synchronized (mLock)
 				{
-					data = mEncryptor.encrypt(this, data);
+					next = mCaptures.poll();
+					failed = mStoreFailed;
 				}
 
-				// if data was encrypted successfully
-				if (data != null)
+				// if no more captures
+				if (next == null)
 				{
-					try
-					{
-						// save object to storage
-						StorageManager.createFile(tag, data);
+					break;
+				}
 
-						return true;
-					}
-					catch (Exception e)
+				// changed fields cannot be journaled after failed store, since previous changes are lost
+				if ((next.journaled == false) || (failed == false))
+				{
+					next.stored = _store(next);
+				}
+
+				// if store failed
+				if (next.stored == false)
+				{
+					synchronized (mLock)
 					{
-						Logger.log(e);
+						mStoreFailed = true;
 					}
 				}
 			}
 
-			return false;
-		}
-
-		mIsDirty = true;
+			// if capture was superseded, then the state is saved only if its successor was stored
+			Capture last = capture;
+			while (last.successor != null)
+			{
+				last = last.successor;
+			}
 
-		return true;
+			return last.stored;
+		}
 	}
 
-	/**
-	 * read previous instance state.
-	 *
-	 * @return true if state exists, false otherwise.
-	 */
 	@SuppressWarnings("null") // compiler issues
-	public boolean readState()
+	private boolean _read()
 	{
-		// deserialize object
+		// read data from storage
 		byte[] data;
+		CRC32 crc = new CRC32();
+		int size;
 		try
 		{
-			// read data from storage
-			data = StorageManager.readFile(tag);
+			// if no state stored
+			File file = StorageManager.getFile(tag);
+			if (file.exists() == false)
+			{
+				return false;
+			}
+
+			data = _decrypt(file, crc);
+			size = (int)file.length();
 		}
 		catch (Exception e)
 		{
+			Logger.log(e);
 			return false;
 		}
 
-		// if encryptor is defined
-		if (mEncryptor != null)
-		{
-			// decrypt data
-			data = mEncryptor.decrypt(this, data);
-		}
-
 		// if data was decrypted successfully
 		if (data != null)
 		{
+			// decompress data if it was compressed
+			try
+			{
+				data = CompressionManager.decompress(data);
+			}
+			catch (Exception e)
+			{
+				Logger.log(e);
+				return false;
+			}
+
 			// deserialize object
 			Serialized object = deserialize(data);
 
@@ -254,30 +592,17 @@ public abstract class Serialized implements Serializable
 				// copy all fields from read object to this
 				try
 				{
-					// get object class
-					Class<?> objectClass = object.getClass();
-
-					while ((objectClass != null) && (objectClass != Object.class))
+					// if the object was not deserialized into this instance
+					if (object != this)
 					{
-						// get all declared fields of object class
-						Field[] fields = objectClass.getDeclaredFields();
-
-						// copy all fields from object to the instance
-						int modifiers = Modifier.TRANSIENT | Modifier.STATIC;
-						for (Field field : fields)
-						{
-							// if field serializable
-							if ((field.getModifiers() & modifiers) == 0)
-							{
-								field.setAccessible(true);
-								field.set(this, field.get(object));
-							}
-						}
-
-						// pass to object father
-						objectClass = objectClass.getSuperclass();
+						SerializedFields.of(object.getClass()).copy(object, this);
 					}
 
+					// apply changes journaled after the state was stored
+					mSnapshotCrc = crc.getValue();
+					mSnapshotSize = size;
+					_replay();
+
 					// if serializer is defined
 					if (mSerializer != null)
 					{
@@ -296,25 +621,442 @@ public abstract class Serialized implements Serializable
 		return false;
 	}
 
-	/**
-	 * remove state of instance
-	 */
-	public final void removeState()
+	@NotNull
+	private Capture _capture()
+	{
+		// if serializer is defined
+		if (mSerializer != null)
+		{
+			mSerializer.prepare(this);
+		}
+
+		// if changed fields may be journaled
+		if ((mJournaled == true) &&
+			(mChanges.isEmpty() == false) &&
+			(mStoreFailed == false) &&
+			(mSnapshotCrc != CRC_NONE) &&
+			(mJournalSize <= Math.max(SIZE_COMPACT_MIN, mSnapshotSize)))
+		{
+			try
+			{
+				Capture capture = _captureChanges();
+				mChanges.clear();
+
+				return capture;
+			}
+			catch (Throwable e)
+			{
+				Logger.log(e);
+			}
+		}
+
+		// copy whole state
+		Capture capture = new Capture(snapshot());
+		mChanges.clear();
+		mStoreFailed = false;
+
+		return capture;
+	}
+
+	@NotNull
+	private Capture _captureChanges() throws Exception
+	{
+		SerializedFields fields = SerializedFields.of(getClass());
+		String[] names = mChanges.toArray(new String[0]);
+		Object[] values = new Object[names.length];
+		for (int i = 0; i < names.length; ++i)
+		{
+			SerializedFields.Accessor accessor = fields.find(names[i]);
+			if (accessor == null)
+			{
+				throw new Exception("no such field: " + names[i]);
+			}
+
+			try
+			{
+				values[i] = accessor.getter.invoke(this);
+			}
+			catch (Exception | Error e)
+			{
+				throw e;
+			}
+			catch (Throwable e)
+			{
+				throw new Exception(e);
+			}
+		}
+
+		// values may be mutable, so they are encoded before later transactions change them
+		return new Capture(_record(names, values));
+	}
+
+	private boolean _store(@NotNull Capture capture_)
+	{
+		// if changed fields were captured
+		if (capture_.journaled == true)
+		{
+			assert capture_.record != null;
+			return _journal(capture_.record);
+		}
+
+		// serialize the copy of the state
+		assert capture_.snapshot != null;
+		byte[] data = capture_.snapshot.serialize();
+		if (data == null)
+		{
+			return false;
+		}
+
+		return _snapshot(data);
+	}
+
+	private boolean _snapshot(byte @NotNull [] data_)
+	{
+		byte[] data = data_;
+
+		// if codec is defined
+		CompressionManager.Codec codec = mCodec;
+		if (codec != null)
+		{
+			try
+			{
+				data = CompressionManager.compress(data, codec);
+			}
+			catch (Exception e)
+			{
+				Logger.log(e);
+				return false;
+			}
+		}
+
+		// if encryptor may encrypt the state while it written
+		if (mEncryptor != null)
+		{
+			try
+			{
+				// if the state was written
+				if (_writeEncrypted(data) == true)
+				{
+					// journal refers to previous state
+					_removeJournal();
+
+					return true;
+				}
+			}
+			catch (Exception e)
+			{
+				Logger.log(e);
+				return false;
+			}
+		}
+
+		// if encryptor is defined
+		if (mEncryptor != null)
+		{
+			data = mEncryptor.encrypt(this, data);
+		}
+
+		// if data was encrypted successfully
+		if (data != null)
+		{
+			try
+			{
+				// save object to storage
+				StorageManager.createFile(tag, data);
+				mSnapshotCrc = BinaryParser.crcValue(data);
+				mSnapshotSize = data.length;
+
+				// journal refers to previous state
+				_removeJournal();
+
+				return true;
+			}
+			catch (Exception e)
+			{
+				Logger.log(e);
+			}
+		}
+
+		return false;
+	}
+
+	private boolean _writeEncrypted(byte @NotNull [] data_) throws Exception
+	{
+		assert mEncryptor != null;
+
+		// temporary files have own directory, so they cannot collide with states of other tags
+		File file = StorageManager.getFile(tag);
+		File directory = new File(file.getParentFile(), DIRECTORY_TEMPORARY);
+		if ((directory.isDirectory() == false) && (directory.mkdirs() == false))
+		{
+			throw new Exception("cannot create directory: " + directory.getPath());
+		}
+
+		// write to temporary file, then replace the state at once
+		File temporary = File.createTempFile(PREFIX_TEMPORARY, null, directory);
+		CRC32 crc = new CRC32();
+		long size;
+		try
+		{
+			OutputStream encrypted;
+			try (CheckedOutputStream stream = new CheckedOutputStream(
+				StorageManager.getFileOutputStream(temporary, false), crc))
+			{
+				// encrypt by chunks, so encrypted state is not held in memory
+				encrypted = mEncryptor.encrypt(this, stream);
+				if (encrypted != null)
+				{
+					try (encrypted)
+					{
+						for (int i = 0; i < data_.length; i += SIZE_CHUNK)
+						{
+							encrypted.write(data_, i, Math.min(SIZE_CHUNK, data_.length - i));
+						}
+					}
+				}
+			}
+
+			// if encryptor does not support streams
+			if (encrypted == null)
+			{
+				StorageManager.delete(temporary);
+				return false;
+			}
+
+			size = temporary.length();
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (Exception e)
+		{
+			StorageManager.delete(temporary);
+			throw e;
+		}
+
+		mSnapshotCrc = crc.getValue();
+		mSnapshotSize = (int)size;
+
+		return true;
+	}
+
+	private byte @Nullable [] _decrypt(@NotNull File file_, @NotNull CRC32 crc_) throws Exception
+	{
+		// if encryptor is defined
+		if (mEncryptor != null)
+		{
+			// decrypt while read, if encryptor supports streams
+			try (CheckedInputStream stream = new CheckedInputStream(
+				StorageManager.getFileInputStream(file_), crc_))
+			{
+				InputStream decrypted = mEncryptor.decrypt(this, stream);
+				if (decrypted != null)
+				{
+					try (decrypted)
+					{
+						return decrypted.readAllBytes();
+					}
+				}
+			}
+		}
+
+		// read whole data
+		byte[] data = StorageManager.readFile(file_);
+		crc_.reset();
+		crc_.update(data);
+
+		// if encryptor is defined
+		if (mEncryptor != null)
+		{
+			// decrypt data
+			data = mEncryptor.decrypt(this, data);
+		}
+
+		return data;
+	}
+
+	private static byte @NotNull [] _record(String @NotNull [] names_, Object @NotNull [] values_)
+	{
+		// write changed fields
+		BinaryParser.Writer writer = new BinaryParser.Writer();
+		BinaryParser.writeInteger(names_.length, BinaryParser.SIZE_ARRAY_LENGTH, writer);
+		for (int i = 0; i < names_.length; ++i)
+		{
+			BinaryParser.writeIntegers(names_[i].getBytes(StandardCharsets.UTF_8), writer);
+			Object value = values_[i];
+			if (value != null)
+			{
+				byte[] bytes = BinarySerialized.write((Serializable)value);
+				BinaryParser.writeInteger(1, BinaryParser.SIZE_INT8, writer);
+				BinaryParser.writeInteger(bytes.length, BinaryParser.SIZE_INT32, writer);
+				writer.push(bytes);
+			}
+			else
+			{
+				BinaryParser.writeInteger(0, BinaryParser.SIZE_INT8, writer);
+			}
+		}
+
+		return writer.extractContent();
+	}
+
+	private boolean _journal(byte @NotNull [] record_)
 	{
+		// if no stored state the journal may refer to
+		if (mSnapshotCrc == CRC_NONE)
+		{
+			return false;
+		}
+
 		try
 		{
-			StorageManager.delete(StorageManager.getFile(tag));
+			byte[] record = record_;
+
+			// if encryptor is defined
+			if (mEncryptor != null)
+			{
+				record = mEncryptor.encrypt(this, record);
+				if (record == null)
+				{
+					return false;
+				}
+			}
+
+			// build journal entry: header of new journal, record size, record CRC and the record
+			// size the entry exactly, so its content is extracted without copying
+			int size = BinaryParser.SIZE_INT32 * 2 + record.length;
+			if (mJournalSize == 0)
+			{
+				size += BinaryParser.SIZE_INT32;
+			}
+			BinaryParser.Writer entry = new BinaryParser.Writer(size);
+			if (mJournalSize == 0)
+			{
+				BinaryParser.writeInteger(mSnapshotCrc, BinaryParser.SIZE_INT32, entry);
+			}
+			BinaryParser.writeInteger(record.length, BinaryParser.SIZE_INT32, entry);
+			BinaryParser.writeInteger(BinaryParser.crcValue(record), BinaryParser.SIZE_INT32, entry);
+			entry.push(record);
+
+			// append the entry
+			byte[] bytes = entry.extractContent();
+			StorageManager.appendFile(tag + SUFFIX_JOURNAL, bytes);
+			mJournalSize += bytes.length;
+
+			return true;
 		}
 		catch (Exception e)
 		{
 			Logger.log(e);
 		}
+
+		return false;
+	}
+
+	private void _replay() throws Exception
+	{
+		mJournalSize = 0;
+
+		// if no journal exists
+		File file = StorageManager.getFile(tag + SUFFIX_JOURNAL);
+		if (file.exists() == false)
+		{
+			return;
+		}
+
+		// if journal refers to another state
+		byte[] journal = StorageManager.readFile(file);
+		if ((journal.length < BinaryParser.SIZE_INT32) ||
+			(BinaryParser.readInteger(journal, BinaryParser.SIZE_INT32, 0) != mSnapshotCrc))
+		{
+			_removeJournal();
+			return;
+		}
+
+		// apply journaled records
+		int index = BinaryParser.SIZE_INT32;
+		while (index + BinaryParser.SIZE_INT32 * 2 <= journal.length)
+		{
+			int length = (int)BinaryParser.readInteger(journal, BinaryParser.SIZE_INT32, index);
+			long crc = BinaryParser.readInteger(journal, BinaryParser.SIZE_INT32,
+				index + BinaryParser.SIZE_INT32);
+			int start = index + BinaryParser.SIZE_INT32 * 2;
+
+			// if record was not completely written
+			if ((length < 0) || (start + length > journal.length))
+			{
+				break;
+			}
+			byte[] record = Arrays.copyOfRange(journal, start, start + length);
+			if (BinaryParser.crcValue(record) != crc)
+			{
+				break;
+			}
+
+			// if encryptor is defined
+			if (mEncryptor != null)
+			{
+				record = mEncryptor.decrypt(this, record);
+				if (record == null)
+				{
+					throw new Exception("unable to decrypt journal of " + tag);
+				}
+			}
+
+			_apply(record);
+			index = start + length;
+		}
+
+		// if journal has not completely written tail
+		if (index < journal.length)
+		{
+			StorageManager.createFile(file, Arrays.copyOf(journal, index));
+		}
+		mJournalSize = index;
 	}
 
-	@Contract(pure = true)
-	protected abstract byte @Nullable [] serialize();
+	private void _apply(byte @NotNull [] record_) throws Exception
+	{
+		SerializedFields fields = SerializedFields.of(getClass());
+		BinaryParser.Reader reader = new BinaryParser.Reader(record_);
 
-	@Contract(pure = true)
-	@Nullable
-	protected abstract Serialized deserialize(byte @NotNull [] data_);
+		// read changed fields
+		int n = (int)BinaryParser.readInteger(reader, BinaryParser.SIZE_ARRAY_LENGTH);
+		for (int i = 0; i < n; ++i)
+		{
+			String name = new String(BinaryParser.readBytes(reader), StandardCharsets.UTF_8);
+			Object value = null;
+			if (BinaryParser.readInteger(reader, BinaryParser.SIZE_INT8) != 0)
+			{
+				int length = (int)BinaryParser.readInteger(reader, BinaryParser.SIZE_INT32);
+				value = BinarySerialized.read(BinaryParser.readBytes(reader, length));
+			}
+
+			// if field still exists
+			SerializedFields.Accessor accessor = fields.find(name);
+			if (accessor != null)
+			{
+				try
+				{
+					accessor.setter.invoke(this, value);
+				}
+				catch (Exception | Error e)
+				{
+					throw e;
+				}
+				catch (Throwable e)
+				{
+					throw new Exception(e);
+				}
+			}
+		}
+	}
+
+	private void _removeJournal() throws Exception
+	{
+		File file = StorageManager.getFile(tag + SUFFIX_JOURNAL);
+		if (file.exists() == true)
+		{
+			StorageManager.delete(file);
+		}
+		mJournalSize = 0;
+	}
 }
@@ -0,0 +1,191 @@
+package borg.framework.serializers;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * serializable fields of a class, with method handles to access them. Built once per class.
+ */
+final class SerializedFields
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** fields of classes **/
+	private static final ClassValue<SerializedFields> FIELDS = new ClassValue<>()
+	{
+		@Override
+		@NotNull
+		protected SerializedFields computeValue(@NotNull Class<?> type_)
+		{
+			return new SerializedFields(type_);
+		}
+	};
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	static final class Accessor
+	{
+		/** unique name of the field in the class hierarchy **/
+		@NotNull
+		final String name;
+
+		/** the field **/
+		@NotNull
+		final Field field;
+
+		/** getter of type (Object)T, where T is the field type, or Object for reference types **/
+		@NotNull
+		final MethodHandle getter;
+
+		/** setter of type (Object, T)void **/
+		@NotNull
+		final MethodHandle setter;
+
+		/** copier of type (Object to, Object from)void **/
+		@NotNull
+		final MethodHandle copier;
+
+		Accessor(@NotNull String name_, @NotNull Field field_) throws Exception
+		{
+			name = name_;
+			field = field_;
+
+			// adapt handles to erased types, so they can be invoked exactly by any caller
+			Class<?> type = field_.getType().isPrimitive() ? field_.getType() : Object.class;
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			getter = lookup.unreflectGetter(field_).asType(MethodType.methodType(type, Object.class));
+			setter = lookup.unreflectSetter(field_)
+				.asType(MethodType.methodType(void.class, Object.class, type));
+			copier = MethodHandles.filterArguments(setter, 1, getter);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** accessors of serializable fields, from base class to derived one, sorted by name per class **/
+	@NotNull
+	final Accessor[] accessors;
+
+	/** accessors mapped by field names **/
+	private final Map<String, Accessor> mAccessors;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	private SerializedFields(@NotNull Class<?> type_)
+	{
+		// collect class hierarchy, from base class to derived one
+		List<Class<?>> classes = new ArrayList<>();
+		for (Class<?> c = type_; (c != null) && (c != Object.class); c = c.getSuperclass())
+		{
+			classes.add(0, c);
+		}
+
+		// collect serializable fields
+		List<Accessor> accessors = new ArrayList<>();
+		mAccessors = new HashMap<>();
+		try
+		{
+			for (Class<?> c : classes)
+			{
+				Field[] fields = c.getDeclaredFields();
+				Arrays.sort(fields, Comparator.comparing(Field::getName));
+				for (Field field : fields)
+				{
+					// if field is serializable
+					if ((field.getModifiers() & (Modifier.TRANSIENT | Modifier.STATIC)) == 0)
+					{
+						// if the name is hidden by base class field
+						String name = field.getName();
+						if (mAccessors.containsKey(name) == true)
+						{
+							name = c.getSimpleName() + '.' + name;
+						}
+
+						field.setAccessible(true);
+						Accessor accessor = new Accessor(name, field);
+						accessors.add(accessor);
+						mAccessors.put(name, accessor);
+					}
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+
+		this.accessors = accessors.toArray(new Accessor[0]);
+	}
+
+	/**
+	 * @param type_ class to get its fields.
+	 *
+	 * @return serializable fields of the class.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	static SerializedFields of(@NotNull Class<?> type_)
+	{
+		return FIELDS.get(type_);
+	}
+
+	/**
+	 * @param name_ name of the field.
+	 *
+	 * @return accessor of the field or {@code null} if no such serializable field.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	Accessor find(@NotNull String name_)
+	{
+		return mAccessors.get(name_);
+	}
+
+	/**
+	 * copy all serializable fields.
+	 *
+	 * @param from_ object to copy from.
+	 * @param to_   object to copy to, must be instance of the class of the fields.
+	 *
+	 * @throws Exception if the copy failed.
+	 */
+	void copy(@NotNull Object from_, @NotNull Object to_) throws Exception
+	{
+		try
+		{
+			for (Accessor accessor : accessors)
+			{
+				accessor.copier.invokeExact(to_, from_);
+			}
+		}
+		catch (Exception | Error e)
+		{
+			throw e;
+		}
+		catch (Throwable e)
+		{
+			throw new Exception(e);
+		}
+	}
+}
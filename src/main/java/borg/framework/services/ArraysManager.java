@@ -2,21 +2,33 @@ package borg.framework.services;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.security.AlgorithmParameters;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
-import borg.framework.auxiliaries.Auxiliary;
-import borg.framework.auxiliaries.Logger;
 import borg.framework.structures.Pair;
 
 public final class ArraysManager
@@ -31,12 +43,42 @@ public final class ArraysManager
 
 	public static final String DEFAULT_TRANSFORMATION = "AES/CTR/NoPadding";
 
+	/** transformation of authenticated encryption **/
+	public static final String TRANSFORMATION_AUTHENTICATED = "AES/GCM/NoPadding";
+
+	/** length of initial vector of authenticated encryption **/
+	public static final int LENGTH_GCM_IV = 12;
+
+	/** length of authentication tag of authenticated encryption **/
+	public static final int LENGTH_GCM_TAG = 16;
+
+	/** length of sha256 hash **/
+	public static final int LENGTH_SHA256 = 32;
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Constants
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 
 	private static final String NAME_HASH_ALGORITHM = "SHA-256";
 
+	/** lengths of keys of authenticated encryption: AES-128, AES-192 and AES-256 **/
+	private static final int[] LENGTHS_GCM_KEY = {16, 24, 32};
+
+	/** maximal number of cached secret keys **/
+	private static final int MAX_KEYS = 256;
+
+	/** minimal number of records in batch to process them in parallel **/
+	private static final int MIN_PARALLEL_RECORDS = 64;
+
+	/** minimal collection size to compare collections through hash index **/
+	private static final int MIN_INDEXED_SIZE = 16;
+
+	/** hex digits, mapped by their values **/
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	/** values of hex digits in any case, mapped by the digits. Not digits are mapped to 0 **/
+	private static final byte[] HEX_VALUES = new byte[128];
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Definitions
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -46,16 +88,45 @@ public final class ArraysManager
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 
 	/** type of encryption **/
-	private static String sEncryptType = null;
+	private static volatile String sEncryptType = null;
 
-	/** current cipher **/
-	private static Cipher sCipher = null;
+	/** encryption transformation **/
+	private static volatile String sTransformation = null;
 
-	/** encryption algorithm parameters **/
-	private static AlgorithmParameters sCipherParams;
+	/** cipher of each thread, since cipher cannot be used concurrently **/
+	private static final ThreadLocal<Cipher> sCiphers = new ThreadLocal<>();
 
-	/** digest to compute sha256 hash **/
-	private static final MessageDigest sSha256Digest;
+	/** authenticated encryption cipher of each thread **/
+	private static final ThreadLocal<Cipher> sAuthenticatedCiphers = ThreadLocal.withInitial(() ->
+	{
+		try
+		{
+			return Cipher.getInstance(TRANSFORMATION_AUTHENTICATED);
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+	});
+
+	/** digest of each thread to compute sha256 hash **/
+	private static final ThreadLocal<MessageDigest> sSha256Digests = ThreadLocal.withInitial(() ->
+	{
+		try
+		{
+			return MessageDigest.getInstance(NAME_HASH_ALGORITHM);
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+	});
+
+	/** certificates of recently used keys, mapped by the keys **/
+	private static final Map<ByteBuffer, SecretKey> sCertificates = new ConcurrentHashMap<>();
+
+	/** generator of initial vectors **/
+	private static final SecureRandom sRandom = new SecureRandom();
 
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Methods
@@ -63,18 +134,25 @@ public final class ArraysManager
 
 	static
 	{
-		MessageDigest digest;
+		// build hex values table
+		for (int i = 0; i < 10; ++i)
+		{
+			HEX_VALUES['0' + i] = (byte)i;
+		}
+		for (int i = 10; i < 16; ++i)
+		{
+			HEX_VALUES['a' + i - 10] = (byte)i;
+			HEX_VALUES['A' + i - 10] = (byte)i;
+		}
+
 		try
 		{
 			setEncryptConfig(DEFAULT_ENCRYPTION_TYPE, DEFAULT_TRANSFORMATION);
-			digest = MessageDigest.getInstance(NAME_HASH_ALGORITHM);
 		}
 		catch (Exception e)
 		{
 			// nothing to do here
-			digest = null;
 		}
-		sSha256Digest = digest;
 	}
 
 	private ArraysManager()
@@ -94,35 +172,46 @@ public final class ArraysManager
 	@Contract(pure = true)
 	public static String getArrayAsHex(byte @NotNull [] array_)
 	{
-		StringBuilder builder = new StringBuilder();
-
-		// convert to string
-		for (byte b : array_)
+		// hex digits are ascii, so string is built from bytes without encoding
+		int n = array_.length;
+		byte[] hex = new byte[n * 2];
+		for (int i = 0, j = 0; i < n; ++i, j += 2)
 		{
-			// append 4 MSB
-			int i = (b & 0xf0) >> 4;
-			if (i < 10)
-			{
-				builder.append((char)('0' + i));
-			}
-			else
-			{
-				builder.append((char)('a' + i - 10));
-			}
+			int b = array_[i];
+			hex[j] = HEX_DIGITS[(b >> 4) & 0xf];
+			hex[j + 1] = HEX_DIGITS[b & 0xf];
+		}
 
-			// append 4 LSB
-			i = b & 0xf;
-			if (i < 10)
-			{
-				builder.append((char)('0' + i));
-			}
-			else
-			{
-				builder.append((char)('a' + i - 10));
-			}
+		return new String(hex, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * write hex representation of part of byte array to given buffer. Each byte is represented as
+	 * two digit hexadecimal number.
+	 *
+	 * @param array_        given array.
+	 * @param offset_       offset of the part in the array.
+	 * @param length_       length of the part.
+	 * @param output_       buffer to write the hex representation to.
+	 * @param outputOffset_ offset in the buffer to write to.
+	 *
+	 * @return number of written chars.
+	 */
+	public static int getArrayAsHex(byte @NotNull [] array_,
+		int offset_,
+		int length_,
+		char @NotNull [] output_,
+		int outputOffset_)
+	{
+		int end = offset_ + length_;
+		for (int i = offset_, j = outputOffset_; i < end; ++i, j += 2)
+		{
+			int b = array_[i];
+			output_[j] = (char)HEX_DIGITS[(b >> 4) & 0xf];
+			output_[j + 1] = (char)HEX_DIGITS[b & 0xf];
 		}
 
-		return builder.toString();
+		return length_ * 2;
 	}
 
 	/**
@@ -136,65 +225,44 @@ public final class ArraysManager
 	@Contract(pure = true)
 	public static byte @NotNull [] buildArrayFromHex(@NotNull String hex_)
 	{
-		// create array
-		int n = hex_.length();
-		byte[] array = new byte[n / 2];
+		byte[] array = new byte[hex_.length() / 2];
+		buildArrayFromHex(hex_, 0, hex_.length(), array, 0);
 
-		int j = 0;
-		for (int i = 0; i < n; i += 2)
-		{
-			// build byte
-			char msd = hex_.charAt(i);
-
-			// if MSD is a number
-			if (msd <= '9')
-			{
-				msd -= '0';
-			}
-			else
-			{
-				// if MSD is in a higher case
-				if (msd <= 'F')
-				{
-					msd -= 'A' - 10;
-				}
-				else
-				{
-					// MSD is in a lower case
-					msd -= 'a' - 10;
-				}
-			}
-
-			char lsd = hex_.charAt(i + 1);
+		return array;
+	}
 
-			// if LSD is a number
-			if (lsd <= '9')
-			{
-				lsd -= '0';
-			}
-			else
-			{
-				// if LSD is in a higher case
-				if (lsd <= 'F')
-				{
-					lsd -= 'A' - 10;
-				}
-				else
-				{
-					// LSD is in a lower case
-					lsd -= 'a' - 10;
-				}
-			}
-			// set byte
-			array[j] = (byte)((msd << 4) + lsd);
-			++j;
+	/**
+	 * build bytes from part of hex representation and write them to given buffer. All bytes must be
+	 * represented by two digit hexadecimal number, in any case.
+	 *
+	 * @param hex_          hex representation of bytes.
+	 * @param offset_       offset of the part in the representation.
+	 * @param length_       length of the part, in chars.
+	 * @param output_       buffer to write the bytes to.
+	 * @param outputOffset_ offset in the buffer to write to.
+	 *
+	 * @return number of written bytes.
+	 */
+	public static int buildArrayFromHex(@NotNull CharSequence hex_,
+		int offset_,
+		int length_,
+		byte @NotNull [] output_,
+		int outputOffset_)
+	{
+		int n = length_ / 2;
+		for (int i = offset_, j = outputOffset_, end = outputOffset_ + n; j < end; i += 2, ++j)
+		{
+			int msd = _getHexValue(hex_.charAt(i));
+			int lsd = _getHexValue(hex_.charAt(i + 1));
+			output_[j] = (byte)((msd << 4) | lsd);
 		}
 
-		return array;
+		return n;
 	}
 
 	/**
-	 * check whether first collection contains second collection.
+	 * check whether first collection contains second collection. Large collections are checked
+	 * through hash index of the first one, so elements must have consistent hash codes.
 	 *
 	 * @param first_  first collection.
 	 * @param second_ second collection.
@@ -210,10 +278,17 @@ public final class ArraysManager
 			return false;
 		}
 
+		// if first collection has no fast lookup and second collection is large
+		Collection<T> first = first_;
+		if ((first_ instanceof Set == false) && (second_.size() >= MIN_INDEXED_SIZE))
+		{
+			first = new HashSet<>(first_);
+		}
+
 		// check if every element from second exists in first
 		for (T element : second_)
 		{
-			if (first_.contains(element) == false)
+			if (first.contains(element) == false)
 			{
 				return false;
 			}
@@ -223,7 +298,9 @@ public final class ArraysManager
 	}
 
 	/**
-	 * check whether two collections are equal.
+	 * check whether two collections are equal. Each element must appear same number of times in both
+	 * collections. Large collections are compared through hash index, so elements must have
+	 * consistent hash codes.
 	 *
 	 * @param first_  first collection.
 	 * @param second_ second collection.
@@ -234,14 +311,62 @@ public final class ArraysManager
 	public static <T> boolean areEqual(@NotNull Collection<T> first_,
 		@NotNull Collection<T> second_)
 	{
-		// if both collection is same size
-		if (first_.size() == second_.size())
+		// if collections have different size
+		if (first_.size() != second_.size())
+		{
+			return false;
+		}
+
+		// if both collections are sets, then each element appears once
+		if ((first_ instanceof Set) && (second_ instanceof Set))
 		{
-			// check if first collection contain second
 			return isContain(first_, second_);
 		}
 
-		return false;
+		// if collections are small
+		if (first_.size() < MIN_INDEXED_SIZE)
+		{
+			// remove each element of second collection from first one
+			List<T> first = new ArrayList<>(first_);
+			for (T element : second_)
+			{
+				if (first.remove(element) == false)
+				{
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		// count elements of first collection
+		Map<T, Integer> counts = new HashMap<>(first_.size() * 4 / 3 + 1);
+		for (T element : first_)
+		{
+			counts.merge(element, 1, Integer::sum);
+		}
+
+		// each element of second collection must match counted one
+		for (T element : second_)
+		{
+			Integer count = counts.get(element);
+			if (count == null)
+			{
+				return false;
+			}
+
+			// if all appearances of the element were matched
+			if (count == 1)
+			{
+				counts.remove(element);
+			}
+			else
+			{
+				counts.put(element, count - 1);
+			}
+		}
+
+		return counts.isEmpty();
 	}
 
 	/**
@@ -291,29 +416,149 @@ public final class ArraysManager
 	}
 
 	/**
-	 * compute a hash of byte array with sha256 algorithm.
+	 * compute a hash of byte array with sha256 algorithm. Thread safe, each thread uses its own
+	 * digest.
 	 *
 	 * @param array_ given byte array.
 	 *
 	 * @return computed hash.
 	 */
-	public synchronized static byte @NotNull [] getArraySha256(byte @NotNull [] array_)
+	public static byte @NotNull [] getArraySha256(byte @NotNull [] array_)
+	{
+		return sSha256Digests.get().digest(array_);
+	}
+
+	/**
+	 * compute sha256 hashes of records stored in one buffer. Large batches are hashed in parallel.
+	 *
+	 * @param buffer_  buffer holds the records.
+	 * @param offsets_ offsets of the records in the buffer.
+	 * @param lengths_ lengths of the records.
+	 * @param output_  buffer to write the hashes to, hash of record i is written at offset i *
+	 *                 {@link ArraysManager#LENGTH_SHA256}.
+	 *
+	 * @throws IllegalArgumentException if lengths do not match offsets, or output is too short.
+	 */
+	public static void getArraysSha256(byte @NotNull [] buffer_,
+		int @NotNull [] offsets_,
+		int @NotNull [] lengths_,
+		byte @NotNull [] output_)
 	{
-		byte[] sha256 = new byte[sSha256Digest.getDigestLength()];
+		int n = offsets_.length;
+		if (lengths_.length != n)
+		{
+			throw new IllegalArgumentException(n + " offsets, " + lengths_.length + " lengths");
+		}
+		_checkHashesOutput(n, output_);
 
 		try
 		{
-			// compute hash as byte array
-			sSha256Digest.update(array_);
-			sSha256Digest.digest(sha256, 0, sha256.length);
-			sSha256Digest.reset();
+			TasksManager.runForEach(n, MIN_PARALLEL_RECORDS, i ->
+			{
+				MessageDigest digest = sSha256Digests.get();
+				try
+				{
+					digest.update(buffer_, offsets_[i], lengths_[i]);
+					digest.digest(output_, i * LENGTH_SHA256, LENGTH_SHA256);
+				}
+				finally
+				{
+					// failed record must not leave its input in the digest of the thread
+					digest.reset();
+				}
+			});
 		}
 		catch (Exception e)
 		{
-			Logger.log(e);
+			throw new Error(e);
 		}
+	}
 
-		return sha256;
+	/**
+	 * compute sha256 hashes of arrays. Large batches are hashed in parallel.
+	 *
+	 * @param arrays_ arrays to hash.
+	 * @param output_ buffer to write the hashes to, hash of array i is written at offset i *
+	 *                {@link ArraysManager#LENGTH_SHA256}.
+	 *
+	 * @throws IllegalArgumentException if output is too short.
+	 */
+	public static void getArraysSha256(byte @NotNull [] @NotNull [] arrays_, byte @NotNull [] output_)
+	{
+		_checkHashesOutput(arrays_.length, output_);
+
+		try
+		{
+			TasksManager.runForEach(arrays_.length, MIN_PARALLEL_RECORDS, i ->
+			{
+				MessageDigest digest = sSha256Digests.get();
+				try
+				{
+					digest.update(arrays_[i]);
+					digest.digest(output_, i * LENGTH_SHA256, LENGTH_SHA256);
+				}
+				finally
+				{
+					digest.reset();
+				}
+			});
+		}
+		catch (Exception e)
+		{
+			throw new Error(e);
+		}
+	}
+
+	/**
+	 * encrypt records stored in one buffer with given key. Large batches are encrypted in parallel.
+	 * The transformation must keep data length, as {@link ArraysManager#DEFAULT_TRANSFORMATION}
+	 * does, since each encrypted record is written at the offset of the record.
+	 *
+	 * @param buffer_  buffer holds the records.
+	 * @param offsets_ offsets of the records in the buffer.
+	 * @param lengths_ lengths of the records.
+	 * @param key_     secret key, must be 16 bytes at least.
+	 * @param ivs_     initial vectors of the records, vector of record i is at offset i *
+	 *                 {@link ArraysManager#LENGTH_AES_BLOCK}.
+	 * @param output_  buffer to write the encrypted records to. May be the buffer of the records.
+	 *
+	 * @throws Exception if encryption was failed, or the transformation does not keep data length.
+	 */
+	public static void encrypt(byte @NotNull [] buffer_,
+		int @NotNull [] offsets_,
+		int @NotNull [] lengths_,
+		byte @NotNull [] key_,
+		byte @NotNull [] ivs_,
+		byte @NotNull [] output_)
+		throws Exception
+	{
+		_cipherRecords(Cipher.ENCRYPT_MODE, buffer_, offsets_, lengths_, key_, ivs_, output_);
+	}
+
+	/**
+	 * decrypt records stored in one buffer with given key. Large batches are decrypted in parallel.
+	 * The transformation must keep data length, as {@link ArraysManager#DEFAULT_TRANSFORMATION}
+	 * does, since each decrypted record is written at the offset of the record.
+	 *
+	 * @param buffer_  buffer holds the encrypted records.
+	 * @param offsets_ offsets of the records in the buffer.
+	 * @param lengths_ lengths of the records.
+	 * @param key_     secret key, must be 16 bytes at least.
+	 * @param ivs_     initial vectors of the records, vector of record i is at offset i *
+	 *                 {@link ArraysManager#LENGTH_AES_BLOCK}.
+	 * @param output_  buffer to write the decrypted records to. May be the buffer of the records.
+	 *
+	 * @throws Exception when decryption failed, or the transformation does not keep data length.
+	 */
+	public static void decrypt(byte @NotNull [] buffer_,
+		int @NotNull [] offsets_,
+		int @NotNull [] lengths_,
+		byte @NotNull [] key_,
+		byte @NotNull [] ivs_,
+		byte @NotNull [] output_)
+		throws Exception
+	{
+		_cipherRecords(Cipher.DECRYPT_MODE, buffer_, offsets_, lengths_, key_, ivs_, output_);
 	}
 
 	/**
@@ -327,15 +572,16 @@ public final class ArraysManager
 	public static void setEncryptConfig(@NotNull String type_, @NotNull String transformation_)
 		throws Exception
 	{
-		sEncryptType = type_;
+		// check that the transformation is supported
+		Cipher.getInstance(transformation_);
 
-		// create cipher
-		sCipher = Cipher.getInstance(transformation_);
-		sCipherParams = sCipher.getParameters();
+		sEncryptType = type_;
+		sTransformation = transformation_;
+		sCertificates.clear();
 	}
 
 	/**
-	 * encrypt byte array with given key by algorithm AES.
+	 * encrypt byte array with given key by algorithm AES. Thread safe.
 	 *
 	 * @param array_ array to encrypt
 	 * @param key_   secret key, must be 16 bytes at least.
@@ -350,54 +596,15 @@ public final class ArraysManager
 	public static Pair<byte[], byte[]> encrypt(byte @NotNull [] array_, byte @NotNull [] key_)
 		throws Exception
 	{
-		byte[] encryptedArray;
-		byte[] iv;
+		// create random initial vector
+		byte[] iv = new byte[LENGTH_AES_BLOCK];
+		sRandom.nextBytes(iv);
 
-		// prepare valid key vector
-		byte[] key = Arrays.copyOf(key_, LENGTH_AES_BLOCK);
-
-		// create certificate
-		SecretKey certificate = new SecretKeySpec(key, sEncryptType);
-
-		// if params is null because of Android issue 58191
-		if (sCipherParams == null)
-		{
-			// create custom initial vector
-			iv = new byte[]
-				{
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random(),
-					(byte)Auxiliary.random()
-				};
-		}
-		else
-		{
-			iv = sCipherParams.getParameterSpec(IvParameterSpec.class).getIV();
-		}
-
-		// initialize cipher with certificate and initial vector
-		IvParameterSpec ivSpec = new IvParameterSpec(iv);
-		sCipher.init(Cipher.ENCRYPT_MODE, certificate, ivSpec);
-		encryptedArray = sCipher.doFinal(array_);
-
-		return new Pair<>(encryptedArray, iv);
+		return new Pair<>(encrypt(array_, key_, iv), iv);
 	}
 
 	/**
-	 * encrypt byte array with given key by algorithm AES.
+	 * encrypt byte array with given key by algorithm AES. Thread safe.
 	 *
 	 * @param array_ array to encrypt.
 	 * @param key_   secret key, must be 16 bytes at least.
@@ -413,51 +620,323 @@ public final class ArraysManager
 		byte @NotNull [] iv_)
 		throws Exception
 	{
-		byte[] encryptedArray;
+		Cipher cipher = _getCipher();
+		cipher.init(Cipher.ENCRYPT_MODE, _getCertificate(key_, sEncryptType), new IvParameterSpec(iv_));
 
-		// prepare valid key vector
-		byte[] key = Arrays.copyOf(key_, LENGTH_AES_BLOCK);
+		return cipher.doFinal(array_);
+	}
+
+	/**
+	 * decrypt byte array with given key by algorithm AES. Thread safe.
+	 *
+	 * @param array_ array to decrypt.
+	 * @param key_   secret key, must be 16 bytes at least.
+	 *
+	 * @return decrypted array.
+	 *
+	 * @throws Exception when decryption failed.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] decrypt(byte @NotNull [] array_,
+		byte @NotNull [] key_,
+		byte @NotNull [] iv_)
+		throws Exception
+	{
+		Cipher cipher = _getCipher();
+		cipher.init(Cipher.DECRYPT_MODE, _getCertificate(key_, sEncryptType), new IvParameterSpec(iv_));
+
+		return cipher.doFinal(array_);
+	}
+
+	/**
+	 * encrypt and authenticate byte array with given key by algorithm AES-GCM, in one pass. New
+	 * random initial vector is used for each call, so the key may be used concurrently. Thread safe.
+	 *
+	 * @param array_ array to encrypt.
+	 * @param key_   secret key of 16, 24 or 32 bytes, used as is.
+	 * @param aad_   additional data to authenticate without encryption, or {@code null} if none.
+	 *
+	 * @return initial vector of {@link ArraysManager#LENGTH_GCM_IV} bytes, followed by encrypted
+	 * array and authentication tag of {@link ArraysManager#LENGTH_GCM_TAG} bytes.
+	 *
+	 * @throws Exception if the key length is invalid or encryption was failed.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] encryptAuthenticated(byte @NotNull [] array_,
+		byte @NotNull [] key_,
+		byte @Nullable [] aad_)
+		throws Exception
+	{
+		// create random initial vector
+		Cipher cipher = sAuthenticatedCiphers.get();
+		byte[] iv = new byte[LENGTH_GCM_IV];
+		sRandom.nextBytes(iv);
+
+		// initialize cipher
+		cipher.init(Cipher.ENCRYPT_MODE,
+			_getAuthenticatedCertificate(key_),
+			new GCMParameterSpec(LENGTH_GCM_TAG * Byte.SIZE, iv));
+		if (aad_ != null)
+		{
+			cipher.updateAAD(aad_);
+		}
 
-		// create certificate
-		SecretKey certificate = new SecretKeySpec(key, sEncryptType);
-		IvParameterSpec ivSpec = new IvParameterSpec(iv_);
+		// encrypt after the initial vector
+		byte[] encrypted = new byte[LENGTH_GCM_IV + cipher.getOutputSize(array_.length)];
+		System.arraycopy(iv, 0, encrypted, 0, LENGTH_GCM_IV);
+		int length = cipher.doFinal(array_, 0, array_.length, encrypted, LENGTH_GCM_IV);
 
-		// initialize cipher with given initial vector
-		sCipher.init(Cipher.ENCRYPT_MODE, certificate, ivSpec);
+		// if cipher produced less than it reserved
+		if (LENGTH_GCM_IV + length != encrypted.length)
+		{
+			encrypted = Arrays.copyOf(encrypted, LENGTH_GCM_IV + length);
+		}
 
-		encryptedArray = sCipher.doFinal(array_);
+		return encrypted;
+	}
 
-		return encryptedArray;
+	/**
+	 * encrypt and authenticate byte array with given key by algorithm AES-GCM, in one pass. Thread
+	 * safe.
+	 *
+	 * @param array_ array to encrypt.
+	 * @param key_   secret key of 16, 24 or 32 bytes, used as is.
+	 *
+	 * @return initial vector, followed by encrypted array and authentication tag.
+	 *
+	 * @throws Exception if the key length is invalid or encryption was failed.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] encryptAuthenticated(byte @NotNull [] array_,
+		byte @NotNull [] key_)
+		throws Exception
+	{
+		return encryptAuthenticated(array_, key_, null);
 	}
 
 	/**
-	 * decrypt byte array with given key by algorithm AES.
+	 * decrypt byte array encrypted by {@link ArraysManager#encryptAuthenticated}, and verify that it
+	 * was not modified. Thread safe.
 	 *
-	 * @param array_ array to decrypt.
-	 * @param key_   secret key, must be 16 bytes at least.
+	 * @param array_ array to decrypt: initial vector, encrypted array and authentication tag.
+	 * @param key_   secret key of 16, 24 or 32 bytes, used as is.
+	 * @param aad_   additional data was authenticated with the array, or {@code null} if none.
+	 *
+	 * @return decrypted array.
+	 *
+	 * @throws Exception when the key length is invalid, decryption failed or the array or
+	 *                   additional data were modified.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] decryptAuthenticated(byte @NotNull [] array_,
+		byte @NotNull [] key_,
+		byte @Nullable [] aad_)
+		throws Exception
+	{
+		// if array is too short
+		if (array_.length < LENGTH_GCM_IV + LENGTH_GCM_TAG)
+		{
+			throw new Exception("authenticated array is too short: " + array_.length);
+		}
+
+		// initialize cipher with stored initial vector
+		Cipher cipher = sAuthenticatedCiphers.get();
+		cipher.init(Cipher.DECRYPT_MODE,
+			_getAuthenticatedCertificate(key_),
+			new GCMParameterSpec(LENGTH_GCM_TAG * Byte.SIZE, array_, 0, LENGTH_GCM_IV));
+		if (aad_ != null)
+		{
+			cipher.updateAAD(aad_);
+		}
+
+		return cipher.doFinal(array_, LENGTH_GCM_IV, array_.length - LENGTH_GCM_IV);
+	}
+
+	/**
+	 * decrypt byte array encrypted by {@link ArraysManager#encryptAuthenticated}, and verify that it
+	 * was not modified. Thread safe.
+	 *
+	 * @param array_ array to decrypt: initial vector, encrypted array and authentication tag.
+	 * @param key_   secret key of 16, 24 or 32 bytes, used as is.
 	 *
 	 * @return decrypted array.
 	 *
+	 * @throws Exception when the key length is invalid, decryption failed or the array was
+	 *                   modified.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] decryptAuthenticated(byte @NotNull [] array_,
+		byte @NotNull [] key_)
+		throws Exception
+	{
+		return decryptAuthenticated(array_, key_, null);
+	}
+
+	/**
+	 * create stream encrypts written data with given key by algorithm AES. Encrypted data is same as
+	 * encrypted by {@link ArraysManager#encrypt(byte[], byte[], byte[])}.
+	 *
+	 * @param stream_ stream to write encrypted data to. Closed when returned stream is closed.
+	 * @param key_    secret key, must be 16 bytes at least.
+	 * @param iv_     initial vector, vector of 16 bytes.
+	 *
+	 * @return stream to write data to encrypt.
+	 *
+	 * @throws Exception if encryption was failed.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static OutputStream encrypt(@NotNull OutputStream stream_,
+		byte @NotNull [] key_,
+		byte @NotNull [] iv_)
+		throws Exception
+	{
+		return new CipherOutputStream(stream_, _createCipher(Cipher.ENCRYPT_MODE, key_, iv_));
+	}
+
+	/**
+	 * create stream decrypts read data with given key by algorithm AES.
+	 *
+	 * @param stream_ stream to read encrypted data from. Closed when returned stream is closed.
+	 * @param key_    secret key, must be 16 bytes at least.
+	 * @param iv_     initial vector, vector of 16 bytes.
+	 *
+	 * @return stream to read decrypted data from.
+	 *
 	 * @throws Exception when decryption failed.
 	 */
+	@NotNull
 	@Contract(pure = true)
-	public static byte @NotNull [] decrypt(byte @NotNull [] array_,
+	public static InputStream decrypt(@NotNull InputStream stream_,
 		byte @NotNull [] key_,
 		byte @NotNull [] iv_)
 		throws Exception
 	{
-		byte[] decryptedArray;
+		return new CipherInputStream(stream_, _createCipher(Cipher.DECRYPT_MODE, key_, iv_));
+	}
+
+	@NotNull
+	private static Cipher _createCipher(int mode_, byte @NotNull [] key_, byte @NotNull [] iv_)
+		throws Exception
+	{
+		// stream holds the cipher until it closed, so the cipher cannot be shared
+		Cipher cipher = Cipher.getInstance(sTransformation);
+		cipher.init(mode_, _getCertificate(key_, sEncryptType), new IvParameterSpec(iv_));
+
+		return cipher;
+	}
+
+	@Contract(pure = true)
+	private static int _getHexValue(char digit_)
+	{
+		return (digit_ < HEX_VALUES.length) ? HEX_VALUES[digit_] : 0;
+	}
+
+	private static void _cipherRecords(int mode_,
+		byte @NotNull [] buffer_,
+		int @NotNull [] offsets_,
+		int @NotNull [] lengths_,
+		byte @NotNull [] key_,
+		byte @NotNull [] ivs_,
+		byte @NotNull [] output_)
+		throws Exception
+	{
+		// if initial vectors are missing
+		int n = offsets_.length;
+		if ((lengths_.length != n) || (ivs_.length < n * LENGTH_AES_BLOCK))
+		{
+			throw new Exception("batch of " + n + " records has " + lengths_.length + " lengths and " +
+				ivs_.length / LENGTH_AES_BLOCK + " initial vectors");
+		}
+
+		// process records, each thread with its own cipher
+		SecretKey certificate = _getCertificate(key_, sEncryptType);
+		TasksManager.runForEach(n, MIN_PARALLEL_RECORDS, i ->
+		{
+			Cipher cipher = _getCipher();
+			cipher.init(mode_,
+				certificate,
+				new IvParameterSpec(ivs_, i * LENGTH_AES_BLOCK, LENGTH_AES_BLOCK));
+
+			// if the transformation changes the record length, e.g. pads it
+			if (cipher.getOutputSize(lengths_[i]) != lengths_[i])
+			{
+				throw new Exception(sTransformation + " does not keep length of records");
+			}
+
+			int length = cipher.doFinal(buffer_, offsets_[i], lengths_[i], output_, offsets_[i]);
+			if (length != lengths_[i])
+			{
+				throw new Exception(sTransformation + " does not keep length of records");
+			}
+		});
+	}
+
+	@NotNull
+	private static Cipher _getCipher() throws Exception
+	{
+		// if thread has no cipher of current transformation
+		String transformation = sTransformation;
+		Cipher cipher = sCiphers.get();
+		if ((cipher == null) || (cipher.getAlgorithm().equals(transformation) == false))
+		{
+			cipher = Cipher.getInstance(transformation);
+			sCiphers.set(cipher);
+		}
+
+		return cipher;
+	}
 
+	private static void _checkHashesOutput(int count_, byte @NotNull [] output_)
+	{
+		if (output_.length < (long)count_ * LENGTH_SHA256)
+		{
+			throw new IllegalArgumentException("output of " + output_.length + " bytes for " +
+				count_ + " hashes");
+		}
+	}
+
+	@NotNull
+	private static SecretKey _getCertificate(byte @NotNull [] key_, @NotNull String type_)
+	{
 		// prepare valid key vector
-		byte[] key = Arrays.copyOf(key_, LENGTH_AES_BLOCK);
+		return _cacheCertificate(Arrays.copyOf(key_, LENGTH_AES_BLOCK), type_);
+	}
+
+	@NotNull
+	private static SecretKey _getAuthenticatedCertificate(byte @NotNull [] key_) throws Exception
+	{
+		// if key is not of AES key length, it is rejected rather than padded or truncated
+		for (int length : LENGTHS_GCM_KEY)
+		{
+			if (key_.length == length)
+			{
+				return _cacheCertificate(key_.clone(), DEFAULT_ENCRYPTION_TYPE);
+			}
+		}
+
+		throw new Exception("invalid key length: " + key_.length);
+	}
+
+	@NotNull
+	private static SecretKey _cacheCertificate(byte @NotNull [] key_, @NotNull String type_)
+	{
+		ByteBuffer key = ByteBuffer.wrap(key_);
 
-		// create certificate
-		SecretKey certificate = new SecretKeySpec(key, sEncryptType);
+		// if certificate of the key was not created yet for the encryption type
+		SecretKey certificate = sCertificates.get(key);
+		if ((certificate == null) || (certificate.getAlgorithm().equals(type_) == false))
+		{
+			// keep the cache bounded
+			if (sCertificates.size() >= MAX_KEYS)
+			{
+				sCertificates.clear();
+			}
 
-		// decryption
-		sCipher.init(Cipher.DECRYPT_MODE, certificate, new IvParameterSpec(iv_));
-		decryptedArray = sCipher.doFinal(array_);
+			certificate = new SecretKeySpec(key.array(), type_);
+			sCertificates.put(key, certificate);
+		}
 
-		return decryptedArray;
+		return certificate;
 	}
 }
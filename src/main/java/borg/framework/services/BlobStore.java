@@ -0,0 +1,358 @@
+package borg.framework.services;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import borg.framework.auxiliaries.Logger;
+
+public final class BlobStore
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** name of directory holds the blobs **/
+	private static final String DIRECTORY_BLOBS = "blobs";
+
+	/** name of directory holds the names **/
+	private static final String DIRECTORY_NAMES = "names";
+
+	/** name of directory holds files being written **/
+	private static final String DIRECTORY_TEMPORARY = "temporary";
+
+	/** prefix of temporary file **/
+	private static final String PREFIX_TEMPORARY = "write";
+
+	/** number of hex digits in name of shard directory **/
+	private static final int LENGTH_SHARD = 2;
+
+	/** number of shard directories levels **/
+	private static final int LEVELS_SHARD = 2;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** directory holds the blobs **/
+	@NotNull
+	private final File mBlobs;
+
+	/** directory holds the names **/
+	@NotNull
+	private final File mNames;
+
+	/** directory holds files being written, before they replace the target files **/
+	@NotNull
+	private final File mTemporary;
+
+	/** number of names refer to each stored blob. Mapped by blob hash **/
+	private final Map<String, Integer> mReferences;
+
+	/** stored names. Map from name to blob hash **/
+	private final Map<String, String> mHashes;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * open store at given directory. Blobs that no name refers to are removed.
+	 *
+	 * @param path_ path of the store directory.
+	 *
+	 * @throws Exception if the store cannot be opened.
+	 */
+	public BlobStore(@NotNull String path_) throws Exception
+	{
+		File root = StorageManager.getFile(path_);
+		mBlobs = new File(root, DIRECTORY_BLOBS);
+		mNames = new File(root, DIRECTORY_NAMES);
+		mTemporary = new File(root, DIRECTORY_TEMPORARY);
+		mReferences = new HashMap<>();
+		mHashes = new HashMap<>();
+
+		StorageManager.createDirectory(mBlobs);
+		StorageManager.createDirectory(mNames);
+		StorageManager.createDirectory(mTemporary);
+
+		// remove files that were not completely written
+		for (File file : _listFiles(mTemporary))
+		{
+			StorageManager.delete(file);
+		}
+
+		// index stored names
+		for (File file : _listFiles(mNames))
+		{
+			String hash = new String(StorageManager.readFile(file), StandardCharsets.US_ASCII);
+			mHashes.put(file.getName(), hash);
+			mReferences.merge(hash, 1, Integer::sum);
+		}
+
+		// remove not referred blobs
+		_collectGarbage(mBlobs, LEVELS_SHARD);
+	}
+
+	/**
+	 * store content under given name. If the content is already stored, then only the name is stored.
+	 * If the name is already stored, then it will refer to the new content.
+	 *
+	 * @param name_    name to store the content under it. Have to be valid filename.
+	 * @param content_ content to store.
+	 *
+	 * @return hash of the stored content.
+	 *
+	 * @throws Exception if the content was not stored.
+	 */
+	@NotNull
+	public synchronized String put(@NotNull String name_, byte @NotNull [] content_)
+		throws Exception
+	{
+		// if name is not valid
+		if (StorageManager.isValidFilename(name_) == false)
+		{
+			throw new Exception("invalid name: " + name_);
+		}
+
+		String hash = ArraysManager.getArrayAsHex(ArraysManager.getArraySha256(content_));
+
+		// if the name already refers to the content
+		String previous = mHashes.get(name_);
+		if (hash.equals(previous) == true)
+		{
+			return hash;
+		}
+
+		// if the content is not stored yet
+		if (mReferences.containsKey(hash) == false)
+		{
+			_write(_getBlob(hash), content_);
+		}
+
+		// store the name
+		_write(new File(mNames, name_), hash.getBytes(StandardCharsets.US_ASCII));
+		mHashes.put(name_, hash);
+		mReferences.merge(hash, 1, Integer::sum);
+
+		// if the name referred to another content
+		if (previous != null)
+		{
+			_release(previous);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * read content stored under given name.
+	 *
+	 * @param name_ name of the content.
+	 *
+	 * @return stored content or {@code null} if no content stored under the name.
+	 *
+	 * @throws Exception if the content cannot be read.
+	 */
+	@Contract(pure = true)
+	public byte @Nullable [] get(@NotNull String name_) throws Exception
+	{
+		String hash = getHash(name_);
+		if (hash != null)
+		{
+			return StorageManager.readFile(_getBlob(hash));
+		}
+
+		return null;
+	}
+
+	/**
+	 * read content by its hash.
+	 *
+	 * @param hash_ hash of the content, as returned by {@link BlobStore#put}.
+	 *
+	 * @return stored content or {@code null} if no such content stored.
+	 *
+	 * @throws Exception if the content cannot be read.
+	 */
+	@Contract(pure = true)
+	public byte @Nullable [] getBlob(@NotNull String hash_) throws Exception
+	{
+		if (contains(hash_) == true)
+		{
+			return StorageManager.readFile(_getBlob(hash_));
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param name_ name of the content.
+	 *
+	 * @return hash of content stored under given name or {@code null} if no such name stored.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public synchronized String getHash(@NotNull String name_)
+	{
+		return mHashes.get(name_);
+	}
+
+	/**
+	 * check whether the content with given hash is stored.
+	 *
+	 * @param hash_ hash of the content.
+	 *
+	 * @return {@code true} if the content stored, {@code false} otherwise.
+	 */
+	@Contract(pure = true)
+	public synchronized boolean contains(@NotNull String hash_)
+	{
+		return mReferences.containsKey(hash_);
+	}
+
+	/**
+	 * check whether the content is stored.
+	 *
+	 * @param content_ content to check.
+	 *
+	 * @return {@code true} if the content stored, {@code false} otherwise.
+	 */
+	@Contract(pure = true)
+	public boolean contains(byte @NotNull [] content_)
+	{
+		return contains(ArraysManager.getArrayAsHex(ArraysManager.getArraySha256(content_)));
+	}
+
+	/**
+	 * remove name from the store. The content is removed when no name refers to it.
+	 *
+	 * @param name_ name to remove.
+	 *
+	 * @return {@code true} if the name was removed, {@code false} if no such name stored.
+	 */
+	public synchronized boolean remove(@NotNull String name_)
+	{
+		String hash = mHashes.remove(name_);
+		if (hash != null)
+		{
+			StorageManager.delete(new File(mNames, name_));
+			_release(hash);
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return number of stored names.
+	 */
+	@Contract(pure = true)
+	public synchronized int size()
+	{
+		return mHashes.size();
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private File _getBlob(@NotNull String hash_)
+	{
+		// build shard directory path
+		File directory = mBlobs;
+		for (int i = 0; i < LEVELS_SHARD; ++i)
+		{
+			directory = new File(directory, hash_.substring(i * LENGTH_SHARD, (i + 1) * LENGTH_SHARD));
+		}
+
+		return new File(directory, hash_);
+	}
+
+	private void _release(@NotNull String hash_)
+	{
+		// if no more names refer to the content
+		Integer references = mReferences.merge(hash_, -1, Integer::sum);
+		if ((references != null) && (references <= 0))
+		{
+			mReferences.remove(hash_);
+
+			// remove the content
+			if (StorageManager.delete(_getBlob(hash_)) == false)
+			{
+				Logger.log("unable to remove blob: " + hash_);
+			}
+		}
+	}
+
+	private void _collectGarbage(@NotNull File directory_, int levels_)
+	{
+		File[] files = directory_.listFiles();
+
+		// if stray file is in place of shard directory
+		if (files == null)
+		{
+			Logger.log("not a shard directory: " + directory_.getPath());
+			return;
+		}
+
+		for (File file : files)
+		{
+			// if file is a shard directory
+			if (levels_ > 0)
+			{
+				_collectGarbage(file, levels_ - 1);
+			}
+			else
+			{
+				// if no name refers to the blob
+				if (mReferences.containsKey(file.getName()) == false)
+				{
+					StorageManager.delete(file);
+				}
+			}
+		}
+	}
+
+	private void _write(@NotNull File file_, byte @NotNull [] content_) throws Exception
+	{
+		// write to temporary file, then replace the file at once
+		File temporary = File.createTempFile(PREFIX_TEMPORARY, null, mTemporary);
+		StorageManager.createFile(temporary, content_);
+		try
+		{
+			StorageManager.createDirectory(file_.getParentFile());
+			Files.move(temporary.toPath(), file_.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (Exception e)
+		{
+			StorageManager.delete(temporary);
+			throw e;
+		}
+	}
+
+	@Contract(pure = true)
+	private static File @NotNull [] _listFiles(@NotNull File directory_) throws Exception
+	{
+		File[] files = directory_.listFiles();
+		if (files == null)
+		{
+			throw new Exception("unable to list directory: " + directory_.getPath());
+		}
+
+		return files;
+	}
+}
@@ -0,0 +1,386 @@
+package borg.framework.services;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import borg.framework.auxiliaries.BinaryParser;
+
+public final class CompressionManager
+{
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Public Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** identifier of deflate codec **/
+	public static final byte ID_DEFLATE = 1;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Constants
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** magic number of compressed data ("BFZ1" in little endian) **/
+	private static final int MAGIC = 0x315a4642;
+
+	/** size of frame header: magic, codec, original length and block size **/
+	private static final int SIZE_HEADER = BinaryParser.SIZE_INT32 +
+		BinaryParser.SIZE_INT8 +
+		BinaryParser.SIZE_INT32 +
+		BinaryParser.SIZE_INT32;
+
+	/** size of uncompressed block (256 kb) **/
+	private static final int SIZE_BLOCK = 256 * 1024;
+
+	/** minimal number of blocks that are processed in parallel **/
+	private static final int MIN_PARALLEL_BLOCKS = 2;
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Definitions
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	public interface Codec
+	{
+		/**
+		 * @return codec identifier stored in compressed data header. Must be unique.
+		 */
+		@Contract(pure = true)
+		byte id();
+
+		/**
+		 * compress block of data. Must be thread safe, since blocks may be compressed in parallel.
+		 *
+		 * @param data_   data to compress.
+		 * @param offset_ offset of the block in the data.
+		 * @param length_ length of the block.
+		 *
+		 * @return compressed block.
+		 *
+		 * @throws Exception if compression failed.
+		 */
+		byte @NotNull [] encode(byte @NotNull [] data_, int offset_, int length_) throws Exception;
+
+		/**
+		 * decompress block of data. Must be thread safe, since blocks may be decompressed in parallel.
+		 *
+		 * @param data_         compressed data.
+		 * @param offset_       offset of the compressed block in the data.
+		 * @param length_       length of the compressed block.
+		 * @param output_       buffer to decompress to.
+		 * @param outputOffset_ offset in the buffer to decompress to.
+		 * @param outputLength_ length of the decompressed block.
+		 *
+		 * @throws Exception if decompression failed.
+		 */
+		void decode(byte @NotNull [] data_,
+			int offset_,
+			int length_,
+			byte @NotNull [] output_,
+			int outputOffset_,
+			int outputLength_) throws Exception;
+	}
+
+	public static final class DeflateCodec implements Codec
+	{
+		/** compression level **/
+		private final int mLevel;
+
+		/**
+		 * @param level_ compression level, from {@link Deflater#BEST_SPEED} to
+		 *               {@link Deflater#BEST_COMPRESSION}.
+		 */
+		@Contract(pure = true)
+		public DeflateCodec(int level_)
+		{
+			mLevel = level_;
+		}
+
+		@Contract(pure = true)
+		public DeflateCodec()
+		{
+			this(Deflater.DEFAULT_COMPRESSION);
+		}
+
+		@Override
+		@Contract(pure = true)
+		public byte id()
+		{
+			return ID_DEFLATE;
+		}
+
+		@Override
+		public byte @NotNull [] encode(byte @NotNull [] data_, int offset_, int length_)
+		{
+			Deflater deflater = new Deflater(mLevel);
+			try
+			{
+				deflater.setInput(data_, offset_, length_);
+				deflater.finish();
+
+				// compress the block
+				ByteArrayOutputStream stream = new ByteArrayOutputStream(length_ / 2 + 64);
+				byte[] buffer = new byte[Math.min(Math.max(length_, 64), SIZE_BLOCK)];
+				while (deflater.finished() == false)
+				{
+					int size = deflater.deflate(buffer);
+					stream.write(buffer, 0, size);
+				}
+
+				return stream.toByteArray();
+			}
+			finally
+			{
+				deflater.end();
+			}
+		}
+
+		@Override
+		public void decode(byte @NotNull [] data_,
+			int offset_,
+			int length_,
+			byte @NotNull [] output_,
+			int outputOffset_,
+			int outputLength_) throws Exception
+		{
+			Inflater inflater = new Inflater();
+			try
+			{
+				inflater.setInput(data_, offset_, length_);
+
+				// decompress the block
+				int size = 0;
+				while ((size < outputLength_) && (inflater.finished() == false))
+				{
+					int n = inflater.inflate(output_, outputOffset_ + size, outputLength_ - size);
+
+					// if no progress can be done
+					if ((n == 0) && (inflater.needsInput() || inflater.needsDictionary()))
+					{
+						break;
+					}
+
+					size += n;
+				}
+
+				// if block is truncated
+				if (size != outputLength_)
+				{
+					throw new Exception("corrupted block: " + size + " of " + outputLength_);
+				}
+			}
+			finally
+			{
+				inflater.end();
+			}
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Fields
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	/** registered codecs, mapped by their identifiers **/
+	private static final Map<Byte, Codec> sCodecs = new ConcurrentHashMap<>();
+
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////////////////
+
+	static
+	{
+		registerCodec(new DeflateCodec());
+	}
+
+	@Contract(pure = true)
+	private CompressionManager()
+	{
+		// private constructor to prevent instantiation
+	}
+
+	/**
+	 * register codec, so compressed data with its identifier can be decompressed.
+	 *
+	 * @param codec_ codec to register. Replaces the codec with same identifier.
+	 */
+	public static void registerCodec(@NotNull Codec codec_)
+	{
+		sCodecs.put(codec_.id(), codec_);
+	}
+
+	/**
+	 * get registered codec.
+	 *
+	 * @param id_ codec identifier.
+	 *
+	 * @return registered codec or {@code null} if no such codec registered.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public static Codec getCodec(byte id_)
+	{
+		return sCodecs.get(id_);
+	}
+
+	/**
+	 * check whether the data is compressed by {@link CompressionManager#compress}.
+	 *
+	 * @param data_ data to check.
+	 *
+	 * @return {@code true} if the data has compressed data header, {@code false} otherwise.
+	 */
+	@Contract(pure = true)
+	public static boolean isCompressed(byte @NotNull [] data_)
+	{
+		return (data_.length >= SIZE_HEADER) &&
+			((int)BinaryParser.readInteger(data_, BinaryParser.SIZE_INT32, 0) == MAGIC);
+	}
+
+	/**
+	 * compress data. The data is split to blocks, that compressed in parallel if there are more
+	 * than one block.
+	 *
+	 * @param data_  data to compress.
+	 * @param codec_ codec to compress with.
+	 *
+	 * @return compressed data with header that identifies the codec.
+	 *
+	 * @throws Exception if compression failed.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] compress(byte @NotNull [] data_, @NotNull Codec codec_)
+		throws Exception
+	{
+		// compress blocks
+		int n = (data_.length + SIZE_BLOCK - 1) / SIZE_BLOCK;
+		byte[][] blocks = new byte[n][];
+		TasksManager.runForEach(n, MIN_PARALLEL_BLOCKS, i ->
+		{
+			int offset = i * SIZE_BLOCK;
+			blocks[i] = codec_.encode(data_, offset, Math.min(SIZE_BLOCK, data_.length - offset));
+		});
+
+		// compute compressed size
+		int size = SIZE_HEADER;
+		for (byte[] block : blocks)
+		{
+			size += BinaryParser.SIZE_INT32 + block.length;
+		}
+
+		// write header
+		byte[] compressed = new byte[size];
+		int index = 0;
+		index += BinaryParser.writeInteger(MAGIC, BinaryParser.SIZE_INT32, index, compressed);
+		index += BinaryParser.writeInteger(codec_.id(), BinaryParser.SIZE_INT8, index, compressed);
+		index += BinaryParser.writeInteger(data_.length, BinaryParser.SIZE_INT32, index, compressed);
+		index += BinaryParser.writeInteger(SIZE_BLOCK, BinaryParser.SIZE_INT32, index, compressed);
+
+		// write blocks
+		for (byte[] block : blocks)
+		{
+			index += BinaryParser.writeInteger(block.length, BinaryParser.SIZE_INT32, index, compressed);
+			System.arraycopy(block, 0, compressed, index, block.length);
+			index += block.length;
+		}
+
+		return compressed;
+	}
+
+	/**
+	 * decompress data compressed by {@link CompressionManager#compress}. The data without compressed
+	 * data header is returned as is.
+	 *
+	 * @param data_ data to decompress.
+	 *
+	 * @return decompressed data.
+	 *
+	 * @throws Exception if the codec is not registered or the data is corrupted.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] decompress(byte @NotNull [] data_) throws Exception
+	{
+		// if data is not compressed
+		if (isCompressed(data_) == false)
+		{
+			return data_;
+		}
+
+		// read header
+		int index = BinaryParser.SIZE_INT32;
+		byte id = (byte)BinaryParser.readInteger(data_, BinaryParser.SIZE_INT8, index);
+		index += BinaryParser.SIZE_INT8;
+		int length = (int)BinaryParser.readInteger(data_, BinaryParser.SIZE_INT32, index);
+		index += BinaryParser.SIZE_INT32;
+		int blockSize = (int)BinaryParser.readInteger(data_, BinaryParser.SIZE_INT32, index);
+		index += BinaryParser.SIZE_INT32;
+
+		// if header is corrupted, blocks are never larger than written by compress
+		if ((length < 0) || (blockSize <= 0) || (blockSize > SIZE_BLOCK))
+		{
+			throw new Exception("corrupted header: length " + length + ", block " + blockSize);
+		}
+
+		// get codec
+		Codec codec = sCodecs.get(id);
+		if (codec == null)
+		{
+			throw new Exception("unknown codec: " + id);
+		}
+
+		// if the data is too short to hold headers of all blocks
+		int n = (length / blockSize) + ((length % blockSize != 0) ? 1 : 0);
+		if (n > (data_.length - index) / BinaryParser.SIZE_INT32)
+		{
+			throw new Exception("corrupted header: " + n + " blocks exceed the data");
+		}
+
+		// if length does not fit the blocks
+		if (((long)length > (long)n * blockSize) || ((n > 0) &&
+			((long)length <= (long)(n - 1) * blockSize)))
+		{
+			throw new Exception("corrupted header: length " + length + " in " + n + " blocks");
+		}
+
+		// locate blocks
+		int[] offsets = new int[n];
+		int[] lengths = new int[n];
+		for (int i = 0; i < n; ++i)
+		{
+			// if block header exceeds the data
+			if (index > data_.length - BinaryParser.SIZE_INT32)
+			{
+				throw new Exception("corrupted data: block " + i + " exceeds the data");
+			}
+
+			lengths[i] = (int)BinaryParser.readInteger(data_, BinaryParser.SIZE_INT32, index);
+			offsets[i] = index + BinaryParser.SIZE_INT32;
+
+			// if block exceeds the data
+			if ((lengths[i] < 0) || (lengths[i] > data_.length - offsets[i]))
+			{
+				throw new Exception("corrupted data: block " + i + " exceeds the data");
+			}
+
+			index = offsets[i] + lengths[i];
+		}
+
+		// decompress blocks
+		byte[] decompressed = new byte[length];
+		TasksManager.runForEach(n, MIN_PARALLEL_BLOCKS, i ->
+		{
+			int offset = i * blockSize;
+			codec.decode(data_,
+				offsets[i],
+				lengths[i],
+				decompressed,
+				offset,
+				Math.min(blockSize, length - offset));
+		});
+
+		return decompressed;
+	}
+}
@@ -9,7 +9,14 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import borg.framework.structures.references.Ref;
 
 public final class StorageManager
 {
@@ -24,10 +31,45 @@ public final class StorageManager
 	/** chunk size (32 kb) **/
 	private static final int SIZE_CHUNK = 32 * 1024;
 
+	/** chunk that marks end of the stream for read ahead reader **/
+	private static final Chunk CHUNK_END = new Chunk(new byte[0]);
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Definitions
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 
+	@FunctionalInterface
+	public interface ChunkConsumer
+	{
+		/**
+		 * consume read chunk. The chunk buffer is reused after the method returns, so the consumer must
+		 * copy the data it wants to keep.
+		 *
+		 * @param chunk_  buffer holds the chunk data.
+		 * @param length_ number of valid bytes in the buffer.
+		 *
+		 * @return {@code true} to continue reading, {@code false} to stop.
+		 *
+		 * @throws Exception when consumer fails, reading will be stopped.
+		 */
+		boolean consume(byte @NotNull [] chunk_, int length_) throws Exception;
+	}
+
+	private static final class Chunk
+	{
+		/** chunk buffer **/
+		final byte[] buffer;
+
+		/** number of valid bytes in the buffer **/
+		int length;
+
+		Chunk(byte @NotNull [] buffer_)
+		{
+			buffer = buffer_;
+			length = 0;
+		}
+	}
+
 	//////////////////////////////////////////////////////////////////////////////////////////////////
 	// Fields
 	//////////////////////////////////////////////////////////////////////////////////////////////////
@@ -163,6 +205,44 @@ public final class StorageManager
 		writeFile(file_, content_, false);
 	}
 
+	/**
+	 * create compressed file with given name from byte array.
+	 *
+	 * @param name_    the path to the given file.
+	 * @param content_ file content.
+	 * @param codec_   codec to compress the content with.
+	 *
+	 * @return created file.
+	 *
+	 * @throws Exception when file was not created.
+	 */
+	@NotNull
+	public static File createFile(@NotNull String name_,
+		byte @NotNull [] content_,
+		@NotNull CompressionManager.Codec codec_) throws Exception
+	{
+		File file = getFile(name_);
+		createFile(file, content_, codec_);
+
+		return file;
+	}
+
+	/**
+	 * create compressed file from byte array.
+	 *
+	 * @param file_    file to create.
+	 * @param content_ file content.
+	 * @param codec_   codec to compress the content with.
+	 *
+	 * @throws Exception when file was not created.
+	 */
+	public static void createFile(@NotNull File file_,
+		byte @NotNull [] content_,
+		@NotNull CompressionManager.Codec codec_) throws Exception
+	{
+		writeFile(file_, CompressionManager.compress(content_, codec_), false);
+	}
+
 	/**
 	 * create file with given name from input stream.
 	 *
@@ -286,6 +366,81 @@ public final class StorageManager
 		}
 	}
 
+	/**
+	 * map file to memory for reading, so it can be parsed in place without reading it.
+	 *
+	 * @param name_ the path to the file.
+	 *
+	 * @return read only buffer of the file content.
+	 *
+	 * @throws Exception when file was not found or is too large to be mapped.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static MappedByteBuffer mapFile(@NotNull String name_) throws Exception
+	{
+		return mapFile(getFile(name_));
+	}
+
+	/**
+	 * map file to memory for reading, so it can be parsed in place without reading it.
+	 *
+	 * @param file_ file to map.
+	 *
+	 * @return read only buffer of the file content.
+	 *
+	 * @throws Exception when file was not found or is too large to be mapped.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static MappedByteBuffer mapFile(@NotNull File file_) throws Exception
+	{
+		try (FileChannel channel = FileChannel.open(file_.toPath(), StandardOpenOption.READ))
+		{
+			// if file cannot be mapped to one buffer
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+			{
+				throw new Exception("file is too large to be mapped: " + size);
+			}
+
+			// mapping remains valid after the channel is closed
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+	}
+
+	/**
+	 * read file that may be compressed by {@link StorageManager#createFile(File, byte[],
+	 * CompressionManager.Codec)}. Not compressed file is returned as is.
+	 *
+	 * @param name_ the path to the file.
+	 *
+	 * @return read and decompressed file content.
+	 *
+	 * @throws Exception when file was not found or is corrupted.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] readCompressedFile(@NotNull String name_) throws Exception
+	{
+		return readCompressedFile(getFile(name_));
+	}
+
+	/**
+	 * read file that may be compressed by {@link StorageManager#createFile(File, byte[],
+	 * CompressionManager.Codec)}. Not compressed file is returned as is.
+	 *
+	 * @param file_ file to read.
+	 *
+	 * @return read and decompressed file content.
+	 *
+	 * @throws Exception when file was not found or is corrupted.
+	 */
+	@Contract(pure = true)
+	public static byte @NotNull [] readCompressedFile(@NotNull File file_) throws Exception
+	{
+		return CompressionManager.decompress(readFile(file_));
+	}
+
 	/**
 	 * read file from stream.
 	 *
@@ -322,6 +477,188 @@ public final class StorageManager
 		}
 	}
 
+	/**
+	 * read file chunk by chunk.
+	 *
+	 * @param name_      the path to the file.
+	 * @param size_      chunk size in bytes.
+	 * @param readAhead_ number of chunks to read ahead on background thread, 0 to read on the
+	 *                   calling thread.
+	 * @param consumer_  consumer to pass read chunks to.
+	 *
+	 * @return number of bytes passed to the consumer.
+	 *
+	 * @throws Exception when file was not found or when the consumer failed.
+	 */
+	public static long readFile(@NotNull String name_,
+		int size_,
+		int readAhead_,
+		@NotNull ChunkConsumer consumer_) throws Exception
+	{
+		return readFile(getFile(name_), size_, readAhead_, consumer_);
+	}
+
+	/**
+	 * read file chunk by chunk.
+	 *
+	 * @param file_      file to read.
+	 * @param size_      chunk size in bytes.
+	 * @param readAhead_ number of chunks to read ahead on background thread, 0 to read on the
+	 *                   calling thread.
+	 * @param consumer_  consumer to pass read chunks to.
+	 *
+	 * @return number of bytes passed to the consumer.
+	 *
+	 * @throws Exception when file was not found or when the consumer failed.
+	 */
+	public static long readFile(@NotNull File file_,
+		int size_,
+		int readAhead_,
+		@NotNull ChunkConsumer consumer_) throws Exception
+	{
+		try (FileInputStream stream = getFileInputStream(file_))
+		{
+			return readFile(stream, size_, readAhead_, consumer_);
+		}
+	}
+
+	/**
+	 * read stream chunk by chunk. Every chunk except the last one is filled completely. The consumer
+	 * is always called on the calling thread, and the reading never gets ahead of the consumer more
+	 * than given number of chunks.
+	 *
+	 * @param stream_    stream to read from.
+	 * @param size_      chunk size in bytes.
+	 * @param readAhead_ number of chunks to read ahead on background thread, 0 to read on the
+	 *                   calling thread.
+	 * @param consumer_  consumer to pass read chunks to.
+	 *
+	 * @return number of bytes passed to the consumer.
+	 *
+	 * @throws Exception when the stream is not readable or when the consumer failed.
+	 * @throws IllegalArgumentException if chunk size is not positive.
+	 */
+	public static long readFile(@NotNull final InputStream stream_,
+		int size_,
+		int readAhead_,
+		@NotNull ChunkConsumer consumer_) throws Exception
+	{
+		if (size_ <= 0)
+		{
+			throw new IllegalArgumentException("chunk size=" + size_);
+		}
+
+		// if read ahead is not required
+		if (readAhead_ <= 0)
+		{
+			return _readChunks(stream_, size_, consumer_);
+		}
+
+		// create chunks pool: one chunk for the consumer and the rest for read ahead
+		BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(readAhead_ + 1);
+		BlockingQueue<Chunk> ready = new ArrayBlockingQueue<>(readAhead_ + 2);
+		for (int i = 0; i <= readAhead_; ++i)
+		{
+			free.add(new Chunk(new byte[size_]));
+		}
+
+		// start reader
+		Ref<Throwable> error = new Ref<>(null);
+		Thread reader = TasksManager.runOnThread(param_ ->
+		{
+			try
+			{
+				for (; ; )
+				{
+					// wait for free chunk
+					Chunk chunk = free.take();
+
+					// if reading was stopped
+					if (chunk == CHUNK_END)
+					{
+						break;
+					}
+
+					// read chunk
+					chunk.length = _fillChunk(stream_, chunk.buffer);
+					if (chunk.length > 0)
+					{
+						ready.put(chunk);
+					}
+
+					// if end of stream was reached
+					if (chunk.length < chunk.buffer.length)
+					{
+						break;
+					}
+				}
+			}
+			catch (Throwable e)
+			{
+				error.value = e;
+			}
+			finally
+			{
+				// notify consumer that reading is done
+				ready.add(CHUNK_END);
+			}
+		});
+
+		long size = 0;
+		try
+		{
+			for (; ; )
+			{
+				// wait for read chunk
+				Chunk chunk = ready.take();
+
+				// if end of the stream was reached
+				if (chunk == CHUNK_END)
+				{
+					break;
+				}
+
+				// consume the chunk
+				size += chunk.length;
+				boolean proceed = consumer_.consume(chunk.buffer, chunk.length);
+
+				// release the chunk
+				free.put(proceed ? chunk : CHUNK_END);
+
+				// if consumer stopped the reading
+				if (proceed == false)
+				{
+					break;
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			// stop the reader
+			free.clear();
+			free.add(CHUNK_END);
+
+			throw e;
+		}
+		finally
+		{
+			// wait for reader to finish before the stream will be released
+			reader.join();
+		}
+
+		// if reading was failed
+		if (error.value instanceof Error)
+		{
+			throw (Error)error.value;
+		}
+		if (error.value != null)
+		{
+			throw (Exception)error.value;
+		}
+
+		return size;
+	}
+
 	/**
 	 * skip in file.
 	 *
@@ -428,6 +765,56 @@ public final class StorageManager
 		return false;
 	}
 
+	private static long _readChunks(@NotNull InputStream stream_,
+		int size_,
+		@NotNull ChunkConsumer consumer_) throws Exception
+	{
+		byte[] buffer = new byte[size_];
+		long size = 0;
+
+		for (; ; )
+		{
+			// read chunk
+			int length = _fillChunk(stream_, buffer);
+
+			// if last chunk was read
+			if (length <= 0)
+			{
+				break;
+			}
+
+			// consume the chunk
+			size += length;
+			if ((consumer_.consume(buffer, length) == false) || (length < buffer.length))
+			{
+				break;
+			}
+		}
+
+		return size;
+	}
+
+	private static int _fillChunk(@NotNull InputStream stream_, byte @NotNull [] buffer_)
+		throws Exception
+	{
+		int length = 0;
+		while (length < buffer_.length)
+		{
+			// read next part of the chunk
+			int size = stream_.read(buffer_, length, buffer_.length - length);
+
+			// if end of stream was reached
+			if (size < 0)
+			{
+				break;
+			}
+
+			length += size;
+		}
+
+		return length;
+	}
+
 	private static void writeFile(@NotNull File file_, byte @NotNull [] content_, boolean append_)
 		throws Exception
 	{
@@ -10,8 +10,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
+import java.util.stream.IntStream;
 
 import borg.framework.auxiliaries.Logger;
+import borg.framework.structures.references.Ref;
 
 public class TasksManager
 {
@@ -38,6 +40,19 @@ public class TasksManager
 		void run(T param_);
 	}
 
+	@FunctionalInterface
+	public interface IndexedTask
+	{
+		/**
+		 * run task for single index.
+		 *
+		 * @param index_ index to run the task for.
+		 *
+		 * @throws Exception if the task failed.
+		 */
+		void run(int index_) throws Exception;
+	}
+
 	private static final class Descriptor<T>
 	{
 		/** task to run **/
@@ -472,6 +487,55 @@ public class TasksManager
 		return false;
 	}
 
+	/**
+	 * run task for each index from 0 to given count, and wait until all runs are finished. Runs are
+	 * done in parallel by the common pool if there are enough of them, otherwise on the calling
+	 * thread.
+	 *
+	 * @param count_       number of indexes.
+	 * @param minParallel_ minimal number of indexes to run in parallel.
+	 * @param task_        task to run.
+	 *
+	 * @throws Exception failure of some run. Other runs are finished anyway.
+	 */
+	public static void runForEach(int count_, int minParallel_, @NotNull IndexedTask task_)
+		throws Exception
+	{
+		// if there are too few runs to parallelize
+		if (count_ < Math.max(minParallel_, 2))
+		{
+			for (int i = 0; i < count_; ++i)
+			{
+				task_.run(i);
+			}
+
+			return;
+		}
+
+		// run in parallel
+		Ref<Exception> error = new Ref<>(null);
+		IntStream.range(0, count_).parallel().forEach(i ->
+		{
+			try
+			{
+				task_.run(i);
+			}
+			catch (Exception e)
+			{
+				synchronized (error)
+				{
+					error.value = e;
+				}
+			}
+		});
+
+		// if some run failed
+		if (error.value != null)
+		{
+			throw error.value;
+		}
+	}
+
 	private static <T> void _addTask(@NotNull Task<T> task_, @Nullable T param_)
 	{
 		synchronized (sTasks)